@@ -0,0 +1,30 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class:			BenchmarkMain
+ * Purpose:			Runs the benchmarks with the allocation profiler always on, so every result reports
+ * 					the memory allocated per call and the allocation rate beside the time. Takes the
+ * 					same arguments as the JMH runner, such as a pattern to pick the benchmarks run.
+ * 					Usage: java -jar target/benchmarks.jar [JMH options] [pattern]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class BenchmarkMain {
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that runs the benchmarks.
+	 * Postcondition:	The results of every benchmark are printed.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class:			BoardBenchmark
+ * Purpose:			Measures the checks of the board and the evaluation of a node on the opening,
+ * 					middlegame and endgame positions.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+	@Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+	public String position;		//The columns played from an empty board
+
+	private Object board;		//The board of the position
+	private Object node;		//A node holding the board of the position
+
+	@Setup
+	public void setUp() {
+		this.board = Targets.newBoard(Targets.parse(position));
+		this.node = Targets.newNode(board);
+	}
+
+	@Benchmark
+	public boolean hasWon() {
+		return Targets.hasWon(board, 1);
+	}
+
+	@Benchmark
+	public boolean hasFinished() {
+		return Targets.hasFinished(board);
+	}
+
+	@Benchmark
+	public int evaluationFunction() {
+		return Targets.evaluationFunction(node);
+	}
+}
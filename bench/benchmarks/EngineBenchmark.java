@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class:			EngineBenchmark
+ * Purpose:			Measures the engine choosing a move at its fixed depth on the opening, middlegame
+ * 					and endgame positions. The engine starts a new game before every call, so each
+ * 					search begins with an empty transposition table and no memory is allocated
+ * 					outside the search itself. Pondering is turned off so no search runs between calls.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+	@Param({Positions.OPENING, Positions.MIDDLEGAME, Positions.ENDGAME})
+	public String position;		//The columns played from an empty board
+
+	private int[] moves;		//The moves of the position
+	private Object engine;		//The engine searched with
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		this.moves = Targets.parse(position);
+		this.engine = Targets.newEngine();
+		Targets.setOption(engine, "ponder", "false");
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		Targets.setPosition(engine, moves);
+	}
+
+	@Benchmark
+	public int bestMove() {
+		return Targets.bestMove(engine, 0);
+	}
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class:			EvaluatorBenchmark
+ * Purpose:			Measures scoring a batch of packed positions with the scalar evaluator and with the
+ * 					evaluator using the Vector API. The positions are random games of every length,
+ * 					made from a fixed seed, and the time is reported for each position scored. The
+ * 					forked program is run with the vector module added so both evaluators can be made.
+ * 					The vector evaluator is measured at the widest registers of the computer, even where
+ * 					BatchEvaluator.create would not pick it.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@OperationsPerInvocation(EvaluatorBenchmark.BATCH)
+public class EvaluatorBenchmark {
+	static final int BATCH = 4096;	//The amount of positions scored by each call
+
+	@Param({"BatchEvaluator", "VectorEvaluator"})
+	public String evaluator;	//The class of the evaluator measured
+
+	private Object batch;		//The evaluator measured
+	private long[] players;		//The bitboard of the player's markers of each position
+	private long[] opponents;	//The bitboard of the opponent's markers of each position
+	private int[] scores;		//The scores of the positions
+
+	@Setup
+	public void setUp() {
+		this.batch = Targets.newEvaluator(evaluator);
+		this.players = new long[BATCH];
+		this.opponents = new long[BATCH];
+		this.scores = new int[BATCH];
+		Random random = new Random(3307768);
+		for (int i = 0; i < BATCH; i++) {
+			Object board = Targets.newBoard(randomGame(random));
+			players[i] = Targets.getMarkers(board, 1);
+			opponents[i] = Targets.getMarkers(board, -1);
+		}
+	}
+
+	@Benchmark
+	public int[] evaluate() {
+		Targets.evaluateBatch(batch, players, opponents, scores, BATCH);
+		return scores;
+	}
+
+	/**
+	 * Method randomGame
+	 * Purpose:			Used to make a random game of a random length that has not finished.
+	 * Parameters:		@param random the random numbers the game is made from
+	 * Return:			@return the columns played from an empty board
+	 */
+	private static int[] randomGame(Random random) {
+		int[] heights = new int[7];
+		int[] moves = new int[random.nextInt(42)];
+		for (int i = 0; i < moves.length; i++) {
+			do {
+				moves[i] = random.nextInt(7);
+			} while (heights[moves[i]] == 6);
+			heights[moves[i]]++;
+		}
+		return Targets.hasFinished(Targets.newBoard(moves)) ? randomGame(random) : moves;
+	}
+}
@@ -0,0 +1,18 @@
+package benchmarks;
+
+/**
+ * Class:			Positions
+ * Purpose:			The fixed positions the benchmarks are run on, given as the columns played from an
+ * 					empty board. None of the games have finished, and each has an even number of moves
+ * 					so the engine is the side to move.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+final class Positions {
+	static final String OPENING = "33";
+	static final String MIDDLEGAME = "3314321022345340";
+	static final String ENDGAME = "3322323514505245221443346410";
+
+	private Positions() {
+	}
+}
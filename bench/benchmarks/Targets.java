@@ -0,0 +1,297 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Class:			Targets
+ * Purpose:			Used to call the classes of the engine from the benchmarks. JMH does not allow a
+ * 					benchmark in the default package, and a class in a named package cannot refer to
+ * 					the default package, so the engine is reached through method handles. The handles
+ * 					are constants, so the compiler inlines them and the call costs the same as a direct
+ * 					call. The engine's objects are passed around as Object.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+final class Targets {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+	private static final Class<?> BOARD = find("Board");
+
+	private static final MethodHandle NEW_BOARD = constructor("Board", int[].class);
+	private static final MethodHandle COPY_BOARD = constructor("Board", BOARD);
+	private static final MethodHandle HAS_WON = method("Board", "hasWon", boolean.class, int.class);
+	private static final MethodHandle HAS_FINISHED = method("Board", "hasFinished", boolean.class);
+	private static final MethodHandle GET_MARKERS = method("Board", "getMarkers", long.class, int.class);
+	private static final MethodHandle NEW_NODE = constructor("Node", BOARD);
+	private static final MethodHandle EVALUATION = method("Node", "evaluationFunction", int.class);
+	private static final MethodHandle NEW_TREE = constructor("Tree", BOARD, int.class);
+	private static final MethodHandle TREE_PERFT = method("Tree", "perftFunction", int.class, int.class);
+	private static final MethodHandle NEW_PERFT = constructor("Perft", int.class);
+	private static final MethodHandle PERFT_CLEAR = method("Perft", "clear", void.class);
+	private static final MethodHandle PERFT_COUNT = method("Perft", "count", long.class, BOARD, int.class);
+	private static final MethodHandle NEW_ENGINE = constructor("Engine");
+	private static final MethodHandle SET_OPTION = method("Engine", "setOption", void.class, String.class, String.class);
+	private static final MethodHandle NEW_GAME = method("Engine", "newGame", void.class);
+	private static final MethodHandle UPDATE_BOARD = method("Engine", "updateBoard", void.class, int.class, int.class);
+	private static final MethodHandle BEST_MOVE = method("Engine", "bestMove", int.class, long.class);
+
+	private static final MethodHandle EVALUATE_BATCH = method("BatchEvaluator", "evaluate", void.class,
+			long[].class, long[].class, int[].class, int.class);
+	private static final MethodHandle GET_LANES = method("BatchEvaluator", "getLanes", int.class);
+
+	private Targets() {
+	}
+
+	static Object newBoard(int[] moves) {
+		try {
+			return NEW_BOARD.invokeExact((Object) moves);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Object copyBoard(Object board) {
+		try {
+			return COPY_BOARD.invokeExact(board);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static boolean hasWon(Object board, int turn) {
+		try {
+			return (boolean) HAS_WON.invokeExact(board, turn);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static boolean hasFinished(Object board) {
+		try {
+			return (boolean) HAS_FINISHED.invokeExact(board);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static long getMarkers(Object board, int turn) {
+		try {
+			return (long) GET_MARKERS.invokeExact(board, turn);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Object newNode(Object board) {
+		try {
+			return NEW_NODE.invokeExact(board);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static int evaluationFunction(Object node) {
+		try {
+			return (int) EVALUATION.invokeExact(node);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method newEvaluator
+	 * Purpose:			Used to create a batch evaluator by the name of its class, so the scalar and vector
+	 * 					evaluators can be measured side by side.
+	 * Parameters:		@param name the name of the class, BatchEvaluator or VectorEvaluator
+	 * Return:			@return the evaluator
+	 */
+	static Object newEvaluator(String name) {
+		try {
+			return constructor(name).invokeExact();
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static int getLanes(Object evaluator) {
+		try {
+			return (int) GET_LANES.invokeExact(evaluator);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static void evaluateBatch(Object evaluator, long[] players, long[] opponents, int[] scores, int count) {
+		try {
+			EVALUATE_BATCH.invokeExact(evaluator, (Object) players, (Object) opponents, (Object) scores, count);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Object newTree(Object board, int depth) {
+		try {
+			return NEW_TREE.invokeExact(board, depth);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static int treePerft(Object tree, int depth) {
+		try {
+			return (int) TREE_PERFT.invokeExact(tree, depth);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Object newPerft(int megabytes) {
+		try {
+			return NEW_PERFT.invokeExact(megabytes);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static void perftClear(Object perft) {
+		try {
+			PERFT_CLEAR.invokeExact(perft);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static long perftCount(Object perft, Object board, int depth) {
+		try {
+			return (long) PERFT_COUNT.invokeExact(perft, board, depth);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Object newEngine() {
+		try {
+			return NEW_ENGINE.invokeExact();
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static void setOption(Object engine, String name, String value) {
+		try {
+			SET_OPTION.invokeExact(engine, (Object) name, (Object) value);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method setPosition
+	 * Purpose:			Used to start a new game on an engine and play a list of moves, giving the moves
+	 * 					to the players so that the engine is the side to move after the last move.
+	 * Parameters:		@param engine the engine the position is set on
+	 * 					@param moves the columns played from an empty board, in order
+	 */
+	static void setPosition(Object engine, int[] moves) {
+		try {
+			NEW_GAME.invokeExact(engine);
+			for (int i = 0; i < moves.length; i++)
+				UPDATE_BOARD.invokeExact(engine, moves[i], (moves.length - i) % 2 == 1 ? -1 : 1);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static int bestMove(Object engine, long milliseconds) {
+		try {
+			return (int) BEST_MOVE.invokeExact(engine, milliseconds);
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method parse
+	 * Purpose:			Used to turn a string of column digits into a list of moves.
+	 * Parameters:		@param line the columns played, one digit each
+	 * Return:			@return the list of moves
+	 */
+	static int[] parse(String line) {
+		int[] moves = new int[line.length()];
+		for (int i = 0; i < moves.length; i++)
+			moves[i] = line.charAt(i) - '0';
+		return moves;
+	}
+
+	/**
+	 * Method find
+	 * Purpose:			Used to load a class of the engine from the default package.
+	 * Parameters:		@param name the name of the class
+	 * Return:			@return the class
+	 */
+	private static Class<?> find(String name) {
+		try {
+			return Class.forName(name);
+		}
+		catch (ClassNotFoundException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Method constructor
+	 * Purpose:			Used to look up a public constructor, with every object in its type erased to
+	 * 					Object.
+	 * Parameters:		@param name the name of the class
+	 * 					@param parameters the types of the parameters of the constructor
+	 * Return:			@return the method handle
+	 */
+	private static MethodHandle constructor(String name, Class<?>... parameters) {
+		try {
+			MethodHandle handle = LOOKUP.findConstructor(find(name), MethodType.methodType(void.class, parameters));
+			return handle.asType(handle.type().erase());
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Method method
+	 * Purpose:			Used to look up a public method, with every object in its type erased to Object.
+	 * Parameters:		@param name the name of the class
+	 * 					@param method the name of the method
+	 * 					@param result the return type of the method
+	 * 					@param parameters the types of the parameters of the method
+	 * Return:			@return the method handle
+	 */
+	private static MethodHandle method(String name, String method, Class<?> result, Class<?>... parameters) {
+		try {
+			MethodHandle handle = LOOKUP.findVirtual(find(name), method, MethodType.methodType(result, parameters));
+			return handle.asType(handle.type().erase());
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class:			TreeBenchmark
+ * Purpose:			Measures building the game tree and counting its positions at fixed depths from the
+ * 					opening position. The count made straight from the board is measured alongside so
+ * 					the two can be compared. Its table of counts is emptied before every call, so no
+ * 					call finds the counts of the one before.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class TreeBenchmark {
+	@Param({"4", "5", "6"})
+	public int depth;			//The depth the tree is expanded to
+
+	private Object board;		//The board of the opening position
+	private Object tree;		//The game tree built once for counting
+	private Object perft;		//The count made straight from the board
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		this.board = Targets.newBoard(Targets.parse(Positions.OPENING));
+		this.tree = Targets.newTree(board, depth);
+		this.perft = Targets.newPerft(1);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		Targets.perftClear(perft);
+	}
+
+	@Benchmark
+	public Object construction() {
+		return Targets.newTree(board, depth);
+	}
+
+	@Benchmark
+	public int treePerft() {
+		return Targets.treePerft(tree, depth);
+	}
+
+	@Benchmark
+	public long boardPerft() {
+		return Targets.perftCount(perft, board, depth);
+	}
+}
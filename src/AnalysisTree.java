@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+/**
+ * Class:			AnalysisTree
+ * Purpose:			Used to keep the lines found while analysing a position, so that the analysis can be
+ * 					deepened and shown again later. The tree holds only the moves of the lines, not the
+ * 					positions they lead to: each node is an index into parallel arrays of its move, its
+ * 					score, the depth it was searched to, when it was scored, its parent, its first child
+ * 					and its next sibling, and the board of a node is made again by playing the moves
+ * 					from the root. A node costs 22 bytes this way instead of an object with a board and
+ * 					a list of children, so a tree many times deeper fits in the same memory.
+ * 					The score of a node is its value for the side that played its move, and the
+ * 					children of a node are ranked by the depth they were searched to and then by score,
+ * 					so a deeper search of a move always ranks above an older shallower one. Moves of the
+ * 					same depth and score keep the order they were scored in, which is the order the
+ * 					lines were searched in.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class AnalysisTree {
+	public static final int ROOT = 0;		//The index of the root node
+	public static final int NONE = -1;		//The index given for a missing node
+	private static final int INITIAL_CAPACITY = 1024;	//The nodes held before the arrays first grow
+
+	private Board root;			//The position the tree is analysed from, with the player to move
+	private byte[] moves;		//The column played to reach each node
+	private byte[] depths;		//The depth each node was searched to
+	private int[] scores;		//The value of each node for the side that played its move
+	private int[] orders;		//When each node was last scored, counted in lines added
+	private int[] parents;		//The parent of each node
+	private int[] firstChildren;	//The first child of each node, or NONE
+	private int[] nextSiblings;	//The next child of the parent of each node, or NONE
+	private int size;			//The amount of nodes in the tree
+	private int added;			//The amount of lines added to the tree
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param root the position analysed, with the player to move. It is copied so the game
+	 * 					is not changed.
+	 */
+	public AnalysisTree(Board root) {
+		this.root = new Board(root);
+		this.moves = new byte[INITIAL_CAPACITY];
+		this.depths = new byte[INITIAL_CAPACITY];
+		this.scores = new int[INITIAL_CAPACITY];
+		this.orders = new int[INITIAL_CAPACITY];
+		this.parents = new int[INITIAL_CAPACITY];
+		this.firstChildren = new int[INITIAL_CAPACITY];
+		this.nextSiblings = new int[INITIAL_CAPACITY];
+		this.size = 1;
+		this.added = 0;
+		parents[ROOT] = NONE;
+		firstChildren[ROOT] = NONE;
+		nextSiblings[ROOT] = NONE;
+	}
+
+	/**
+	 * Method addLine
+	 * Purpose:			Used to add a line found by a search of the root to the tree. The nodes of the
+	 * 					line that are missing are added, and each node of the line is given the score of
+	 * 					the line for the side that played its move and the depth left below it, unless it
+	 * 					was already searched deeper. The nodes scored are marked as scored after those of
+	 * 					every line added before.
+	 * Postcondition:	Every move of the line is a node of the tree.
+	 * Parameters:		@param line the moves of the line from the root
+	 * 					@param score the value of the line for the player
+	 * 					@param depth the depth the root was searched to
+	 */
+	public void addLine(int[] line, int score, int depth) {
+		int node = ROOT;
+		added++;
+		for (int ply = 0; ply < line.length; ply++) {
+			int child = getChild(node, line[ply]);
+			if (child == NONE)
+				child = add(node, line[ply]);
+			int remaining = Math.max(0, depth - ply);
+			if (remaining >= depths[child]) {
+				depths[child] = (byte) remaining;
+				scores[child] = ply % 2 == 0 ? score : -score;
+				orders[child] = added;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Method getChild
+	 * Purpose:			Used to find the child of a node reached by a move.
+	 * Parameters:		@param node the parent
+	 * 					@param move the column played
+	 * Return:			@return the child, or NONE if the move has not been added
+	 */
+	public int getChild(int node, int move) {
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if (moves[child] == move)
+				return child;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Method getRankedChildren
+	 * Purpose:			Used to list the children of a node from best to worst for the side to move: by
+	 * 					the depth they were searched to, then by score, then by the order they were scored.
+	 * Parameters:		@param node the parent
+	 * Return:			@return the children in order
+	 */
+	public int[] getRankedChildren(int node) {
+		int[] children = new int[Board.WIDTH];
+		int count = 0;
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			int j = count++;
+			while (j > 0 && ranksAbove(child, children[j - 1])) {		//Insert the child by its rank
+				children[j] = children[j - 1];
+				j--;
+			}
+			children[j] = child;
+		}
+		return Arrays.copyOf(children, count);
+	}
+
+	/**
+	 * Method getLine
+	 * Purpose:			Used to read the line from the root to a node followed by the best line below it,
+	 * 					found by taking the best ranked child of each node.
+	 * Parameters:		@param node the node the line passes through
+	 * Return:			@return the moves of the line from the root
+	 */
+	public int[] getLine(int node) {
+		int length = 0;
+		for (int parent = node; parent != ROOT; parent = parents[parent])
+			length++;
+		for (int child = best(node); child != NONE; child = best(child))
+			length++;
+		int[] line = new int[length];
+		int i = 0;
+		for (int parent = node; parent != ROOT; parent = parents[parent])
+			line[i++] = moves[parent];
+		for (int a = 0, b = i - 1; a < b; a++, b--) {				//Put the moves from the root first
+			int move = line[a];
+			line[a] = line[b];
+			line[b] = move;
+		}
+		for (int child = best(node); child != NONE; child = best(child))
+			line[i++] = moves[child];
+		return line;
+	}
+
+	/**
+	 * Method getPosition
+	 * Purpose:			Used to make the board of a node by playing the moves from the root to it.
+	 * Parameters:		@param node the node
+	 * Return:			@return a new board of the position of the node
+	 */
+	public Board getPosition(int node) {
+		int length = 0;
+		for (int parent = node; parent != ROOT; parent = parents[parent])
+			length++;
+		int[] path = new int[length];
+		for (int parent = node; parent != ROOT; parent = parents[parent])
+			path[--length] = moves[parent];
+		Board board = new Board(root);
+		for (int ply = 0; ply < path.length; ply++)
+			board.update(path[ply], ply % 2 == 0 ? 1 : -1);
+		return board;
+	}
+
+	/**
+	 * Method getRoot
+	 * Purpose:			Used to return a copy of the position the tree is analysed from.
+	 * Return:			@return the board of the root
+	 */
+	public Board getRoot() {
+		return new Board(root);
+	}
+
+	/**
+	 * Method getMove
+	 * Purpose:			Used to return the column played to reach a node.
+	 * Parameters:		@param node the node
+	 * Return:			@return the column of the node
+	 */
+	public int getMove(int node) {
+		return moves[node];
+	}
+
+	/**
+	 * Method getScore
+	 * Purpose:			Used to return the value of a node for the side that played its move.
+	 * Parameters:		@param node the node
+	 * Return:			@return the score of the node
+	 */
+	public int getScore(int node) {
+		return scores[node];
+	}
+
+	/**
+	 * Method getDepth
+	 * Purpose:			Used to return the depth a node was searched to.
+	 * Parameters:		@param node the node
+	 * Return:			@return the depth of the node
+	 */
+	public int getDepth(int node) {
+		return depths[node];
+	}
+
+	/**
+	 * Method getSize
+	 * Purpose:			Used to return the amount of nodes in the tree, including the root.
+	 * Return:			@return the amount of nodes
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Method add
+	 * Purpose:			Used to add a child to a node, growing the arrays when they are full. The child is
+	 * 					added first, so the newest lines are found first.
+	 * Postcondition:	The child is a node of the tree with no children of its own.
+	 * Parameters:		@param parent the parent
+	 * 					@param move the column played
+	 * Return:			@return the index of the child
+	 */
+	private int add(int parent, int move) {
+		if (size == moves.length) {
+			int capacity = moves.length * 2;
+			this.moves = Arrays.copyOf(moves, capacity);
+			this.depths = Arrays.copyOf(depths, capacity);
+			this.scores = Arrays.copyOf(scores, capacity);
+			this.orders = Arrays.copyOf(orders, capacity);
+			this.parents = Arrays.copyOf(parents, capacity);
+			this.firstChildren = Arrays.copyOf(firstChildren, capacity);
+			this.nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+		}
+		int child = size++;
+		moves[child] = (byte) move;
+		depths[child] = 0;
+		scores[child] = 0;
+		orders[child] = 0;
+		parents[child] = parent;
+		firstChildren[child] = NONE;
+		nextSiblings[child] = firstChildren[parent];
+		firstChildren[parent] = child;
+		return child;
+	}
+
+	/**
+	 * Method best
+	 * Purpose:			Used to find the best ranked child of a node.
+	 * Parameters:		@param node the parent
+	 * Return:			@return the best child, or NONE if the node has no children
+	 */
+	private int best(int node) {
+		int best = NONE;
+		for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+			if (best == NONE || ranksAbove(child, best))
+				best = child;
+		}
+		return best;
+	}
+
+	/**
+	 * Method ranksAbove
+	 * Purpose:			Used to compare two children of the same node, first by the depth they were
+	 * 					searched to, then by score and then by the order they were scored, so that of two
+	 * 					equal moves the one whose line was searched first ranks above.
+	 * Parameters:		@param a the first child
+	 * 					@param b the second child
+	 * Return:			@return true if a ranks above b
+	 */
+	private boolean ranksAbove(int a, int b) {
+		if (depths[a] != depths[b])
+			return depths[a] > depths[b];
+		if (scores[a] != scores[b])
+			return scores[a] > scores[b];
+		return orders[a] < orders[b];
+	}
+}
@@ -0,0 +1,201 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class:			Analyzer
+ * Purpose:			Used to score large sets of positions offline, such as the positions of game logs,
+ * 					without the coordinator. Each line of the input is a position given as the columns
+ * 					played from an empty board, such as "3314", and an empty line is the empty board.
+ * 					The positions are searched across every core to a fixed depth, or until a number of
+ * 					nodes has been searched, and a line is written for each one in the order they were
+ * 					read:
+ * 						moves, best move, score for the side to move, depth reached, nodes, best line;
+ * 					where a line that is not a legal unfinished game is given the best move -1, with
+ * 					only the digits of the line as its moves, so that no word of it can break the
+ * 					columns of the results. Only a few positions for each thread are read ahead of the
+ * 					results written, so the memory used does not grow with the size of the input. Each
+ * 					thread has a small transposition table of its own that is cleared before each
+ * 					position, so the result of a position does not depend on the positions searched
+ * 					before it or on the amount of threads, and a search limited by nodes gives the same
+ * 					result however busy the computer is. Either file may be given as "-" for standard
+ * 					input or output.
+ * 					Usage: java Analyzer <positions file> <results file> [depth] [nodes] [threads] [hash megabytes]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Analyzer {
+	private static final int WINDOW = 64;		//The positions read ahead for each thread
+	private static final int REPORT_INTERVAL = 100000;	//The positions written between reports of progress
+
+	private int depth;			//The deepest iteration searched for each position
+	private long nodeLimit;		//The nodes searched for each position, or zero for no limit
+	private ThreadLocal<TranspositionTable> tables;	//The transposition table of each thread
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param depth the deepest iteration searched for each position
+	 * 					@param nodeLimit the nodes searched for each position, or zero for no limit
+	 * 					@param megabytes the memory of the transposition table of each thread
+	 */
+	public Analyzer(int depth, long nodeLimit, int megabytes) {
+		this.depth = Math.max(1, depth);
+		this.nodeLimit = nodeLimit;
+		this.tables = ThreadLocal.withInitial(() -> new TranspositionTable(Math.max(1, megabytes)));
+	}
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that analyses every position of a file.
+	 * Postcondition:	A line is written to the results for each position and the time taken is printed.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.out.println("Usage: java Analyzer <positions file> <results file> [depth] [nodes] [threads] [hash megabytes]");
+			return;
+		}
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+		long nodes = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		int megabytes = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+		Analyzer analyzer = new Analyzer(nodes > 0 ? Board.WIDTH * Board.HEIGHT : depth, nodes, megabytes);
+		long start = System.nanoTime();
+		long count;
+		try (BufferedReader in = args[0].equals("-")
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII))
+				: Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.US_ASCII);
+				PrintWriter out = new PrintWriter(args[1].equals("-")
+						? new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)
+						: Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.US_ASCII))) {
+			count = analyzer.analyze(in, out, threads);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.err.printf("%d positions analysed in %.1f s (%.0f per second)%n", count, seconds, count / seconds);
+	}
+
+	/**
+	 * Method analyze
+	 * Purpose:			Used to analyse every position of the input on a pool of threads. Positions are
+	 * 					read while the oldest one is still being searched, until a fixed amount for each
+	 * 					thread is waiting, and the results are written as soon as every position before
+	 * 					them has been written.
+	 * Postcondition:	A line is written for each position read, in the same order.
+	 * Parameters:		@param in the positions, one for each line
+	 * 					@param out the results
+	 * 					@param threads the amount of positions searched at once
+	 * Return:			@return the amount of positions analysed
+	 */
+	public long analyze(BufferedReader in, PrintWriter out, int threads) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		ArrayDeque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		long count = 0;
+		try {
+			out.println("moves,bestmove,score,depth,nodes,pv");
+			String line;
+			while ((line = in.readLine()) != null) {
+				String position = line.trim();
+				pending.add(pool.submit(() -> analyze(position)));
+				if (pending.size() >= Math.max(1, threads) * WINDOW)
+					count = write(pending.poll(), out, count);
+			}
+			while (!pending.isEmpty())
+				count = write(pending.poll(), out, count);
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		out.flush();
+		return count;
+	}
+
+	/**
+	 * Method write
+	 * Purpose:			Used to wait for the result of the oldest position and write it.
+	 * Parameters:		@param result the result of the oldest position
+	 * 					@param out the results
+	 * 					@param count the amount of positions written before it
+	 * Return:			@return the amount of positions written
+	 */
+	private static long write(Future<String> result, PrintWriter out, long count) throws InterruptedException {
+		try {
+			out.println(result.get());
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		if (++count % REPORT_INTERVAL == 0)
+			System.err.println(count + " positions analysed");
+		return count;
+	}
+
+	/**
+	 * Method analyze
+	 * Purpose:			Used to search one position with the transposition table of the thread, cleared
+	 * 					first so that nothing is kept from the position searched before it.
+	 * Parameters:		@param position the columns played from an empty board
+	 * Return:			@return the line of results for the position
+	 */
+	private String analyze(String position) {
+		int[] moves = parse(position);
+		if (moves == null)
+			return digits(position) + ",-1,0,0,0,";
+		Board board = new Board(moves);
+		TranspositionTable table = tables.get();
+		table.clear();
+		Search search = new Search(board, table);
+		search.setNodeLimit(nodeLimit);
+		int move = search.bestMove(depth, 0);
+		StringBuilder line = new StringBuilder(position);
+		line.append(',').append(move).append(',').append(search.getBestScore()).append(',')
+				.append(search.getCompletedDepth()).append(',').append(search.getNodes()).append(',');
+		int[] bestLine = search.getBestLine();
+		for (int i = 0; i < bestLine.length; i++)
+			line.append(i == 0 ? "" : " ").append(bestLine[i]);
+		return line.toString();
+	}
+
+	/**
+	 * Method digits
+	 * Purpose:			Used to keep only the digits of a line that is not a legal position, so that it
+	 * 					can be written as the moves of its results.
+	 * Parameters:		@param position the line read
+	 * Return:			@return the digits of the line, in order
+	 */
+	private static String digits(String position) {
+		StringBuilder digits = new StringBuilder();
+		for (int i = 0; i < position.length(); i++) {
+			if (position.charAt(i) >= '0' && position.charAt(i) <= '9')
+				digits.append(position.charAt(i));
+		}
+		return digits.toString();
+	}
+
+	/**
+	 * Method parse
+	 * Purpose:			Used to read the moves of a position and check that they make a legal game that
+	 * 					has not finished.
+	 * Parameters:		@param position the columns played from an empty board
+	 * Return:			@return the moves, or null if they are not a legal unfinished game
+	 */
+	private static int[] parse(String position) {
+		int[] moves = new int[position.length()];
+		Board board = new Board();
+		for (int i = 0; i < moves.length; i++) {
+			moves[i] = position.charAt(i) - '0';
+			if (moves[i] < 0 || moves[i] >= Board.WIDTH || board.isIllegal(moves[i]) || board.hasFinished())
+				return null;
+			board.update(moves[i], i % 2 == 0 ? 1 : -1);
+		}
+		return board.hasFinished() ? null : moves;
+	}
+}
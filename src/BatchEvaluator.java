@@ -0,0 +1,107 @@
+/**
+ * Class:			BatchEvaluator
+ * Purpose:			Used to score many positions at once with the evaluation function, such as the
+ * 					leaves of a search or a set of positions scored offline. The positions are packed
+ * 					into two arrays of bitboards, the player's and the opponent's markers, and the counts
+ * 					of each position are worked out from its bitboards instead of being read from a board.
+ * 					This class scores one position after another and works on every version of Java.
+ * 					VectorEvaluator scores several positions with each instruction using the incubating
+ * 					Vector API, and is loaded by name so the program still builds and runs without it.
+ * 					It is used when the program is run with --add-modules jdk.incubator.vector and the
+ * 					vector registers hold eight longs, and this class otherwise, as four longs at a time
+ * 					was slower than this class where it was measured. Both give exactly the scores of
+ * 					Node.evaluate.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class BatchEvaluator {
+	private static final String VECTOR_EVALUATOR = "VectorEvaluator";	//The class using the Vector API
+	private static final int MIN_LANES = 8;	//The positions scored at once for the Vector API to be used
+
+	/**
+	 * Default constructor for the evaluator that scores one position after another.
+	 */
+	public BatchEvaluator() {
+	}
+
+	/**
+	 * Method create
+	 * Purpose:			Used to create the fastest evaluator the running Java allows. The Vector API is
+	 * 					looked up by loading the class that uses it, which fails when the module is not
+	 * 					added or the computer has no vector registers.
+	 * Return:			@return the vector evaluator if it can be used and its registers are wide enough,
+	 * 					and a scalar evaluator otherwise
+	 */
+	public static BatchEvaluator create() {
+		try {
+			BatchEvaluator vector = (BatchEvaluator) Class.forName(VECTOR_EVALUATOR).getDeclaredConstructor().newInstance();
+			return vector.getLanes() >= MIN_LANES ? vector : new BatchEvaluator();
+		}
+		catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			return new BatchEvaluator();
+		}
+	}
+
+	/**
+	 * Method getLanes
+	 * Purpose:			Used to tell how many positions are scored with each instruction.
+	 * Return:			@return one, as the positions are scored one after another
+	 */
+	public int getLanes() {
+		return 1;
+	}
+
+	/**
+	 * Method evaluate
+	 * Purpose:			Used to score an array of boards, packing their bitboards first.
+	 * Parameters:		@param positions the boards scored
+	 * Return:			@return the score of each board, as Node.evaluate would give it
+	 */
+	public int[] evaluate(Board[] positions) {
+		long[] players = new long[positions.length];
+		long[] opponents = new long[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			players[i] = positions[i].getMarkers(1);
+			opponents[i] = positions[i].getMarkers(-1);
+		}
+		int[] scores = new int[positions.length];
+		evaluate(players, opponents, scores, positions.length);
+		return scores;
+	}
+
+	/**
+	 * Method evaluate
+	 * Purpose:			Used to score packed positions, one after another.
+	 * Postcondition:	The first count scores are set.
+	 * Parameters:		@param players the bitboard of the player's markers of each position
+	 * 					@param opponents the bitboard of the opponent's markers of each position
+	 * 					@param scores the scores of the positions, for the player
+	 * 					@param count the amount of positions scored
+	 */
+	public void evaluate(long[] players, long[] opponents, int[] scores, int count) {
+		for (int i = 0; i < count; i++)
+			scores[i] = evaluate(players[i], opponents[i]);
+	}
+
+	/**
+	 * Method evaluate
+	 * Purpose:			Used to score one packed position. A win is worth 100 to the player if the player
+	 * 					has four together and to the opponent otherwise, and each three together is worth
+	 * 					10 and each two together 1 to the side they belong to.
+	 * Parameters:		@param player the bitboard of the player's markers
+	 * 					@param opponent the bitboard of the opponent's markers
+	 * Return:			@return the score of the position for the player
+	 */
+	static int evaluate(long player, long opponent) {
+		int playerCounts = Board.counts(player);
+		int opponentCounts = Board.counts(opponent);
+		int score = 0;
+		if ((playerCounts & 0xFF) != 0)
+			score = 100;
+		else if ((opponentCounts & 0xFF) != 0)
+			score = -100;
+		score += ((playerCounts >>> 8) & 0xFF) * 10 + (playerCounts >>> 16);
+		score -= ((opponentCounts >>> 8) & 0xFF) * 10 + (opponentCounts >>> 16);
+		return score;
+	}
+}
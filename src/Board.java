@@ -1,56 +1,165 @@
+import java.util.Random;
+
 /**
  * Class:			Board
  * Purpose:			Used to simulate a game board of Connect Four. The game board contains six
  * 					rows and seven columns. When four markers from a player are together in a sequence
  * 					either horizontally, vertically, or diagonally, the player wins. The board is represented
- * 					by a two-dimensional array of integers where:
- * 						 0	=	Empty Space;
- * 						 1	=	The player's marker;
- * 						-1	=	The opponent's marker.
+ * 					by two bitboards, one for each player, and the height of every column:
+ * 						player		=	The player's markers (1);
+ * 						opponent	=	The opponent's markers (-1).
+ * 					Each column uses seven bits of a bitboard. The first six bits are the rows from the
+ * 					bottom of the column to the top and the seventh bit is always empty so that shifting
+ * 					a bitboard never carries a marker from one column into the next.
+ * 					The board also keeps the counts used by the evaluation function up to date. A move
+ * 					only changes the counts of the player whose marker it is, so only that player's
+ * 					counts are worked out again when a marker is dropped or taken back, and reading
+ * 					them afterwards costs nothing.
+ * 					A position and its mirror image have the same result when played out perfectly, so
+ * 					the board can give a canonical key and hash that the position shares with its
+ * 					mirror, for the counts of perft and the scores of the solver. The hash of the mirror
+ * 					is kept up to date alongside the hash, and whichever of the two is smaller is used.
+ * 					The evaluation function does not score a position and its mirror the same, as a
+ * 					sequence of two or three is only counted horizontally when a row of four fits to its
+ * 					right, so the search uses the hash of the board itself.
  * Student Name:	Sean Crocker
  * Student Number:	3307768
  */
 public class Board {
-	private int[][] board;		//The 2D array representing the board
-	
+	public static final int WIDTH = 7;				//The number of columns
+	public static final int HEIGHT = 6;				//The number of rows
+	private static final int H1 = HEIGHT + 1;		//The number of bits used by each column
+
+	//Every cell on the board that can hold a marker
+	private static final long BOARD_MASK = cells(0, WIDTH - 1, 0, HEIGHT - 1);
+	//The bits of the first column, including the empty bit above it
+	private static final long COLUMN_MASK = (1L << H1) - 1;
+	//The bottom cell of every column
+	private static final long BOTTOM_MASK = cells(0, WIDTH - 1, 0, 0);
+	//The first cell of each sequence counted horizontally, vertically and diagonally, also used by the
+	//batch evaluators
+	static final long HORIZONTAL_START = cells(0, WIDTH - 4, 0, HEIGHT - 1);
+	static final long VERTICAL_START = cells(0, WIDTH - 1, 3, HEIGHT - 1);
+	static final long POSITIVE_START = cells(0, WIDTH - 4, 0, HEIGHT - 4);
+	static final long NEGATIVE_START = cells(3, WIDTH - 1, 0, HEIGHT - 4);
+	//The shift between neighbouring cells horizontally and along both diagonals
+	private static final int[] DIRECTIONS = {H1, H1 - 1, H1 + 1};
+
+	//Random keys for every marker on every cell. The key of the empty bit above the first column
+	//never belongs to a marker and is used to mark the opponent as the side to move.
+	private static final long[][] ZOBRIST = zobristKeys();
+	private static final long OPPONENT_TO_MOVE = ZOBRIST[0][HEIGHT];
+
+	private long player;		//The bitboard of the player's markers
+	private long opponent;		//The bitboard of the opponent's markers
+	private int heights;		//The height of each column, packed into three bits per column
+	private long hash;			//The Zobrist hash of the markers on the board
+	private long mirrorHash;	//The Zobrist hash of the markers on the mirror image of the board
+	private int playerCounts;	//The player's amounts of four, three and two together, one per byte
+	private int opponentCounts;	//The opponent's amounts of four, three and two together, one per byte
+
 	/**
-	 * Default Constructor used to initialize the two-dimensional array of integers.
+	 * Default Constructor used to initialize an empty board.
 	 */
 	public Board() {
-		this.board = new int[6][7];
+		this.player = 0;
+		this.opponent = 0;
+		this.heights = 0;
+		this.hash = 0;
+		this.mirrorHash = 0;
+		this.playerCounts = 0;
+		this.opponentCounts = 0;
 	}
-	
+
 	/**
-	 * A copy constructor used to initialize the two-dimensional array and copy the contents
-	 * from another game board's array.
+	 * A copy constructor used to copy the bitboards, column heights and counts from another game board.
 	 * Parameters:		@param gameBoard the object being copied
 	 */
 	public Board(Board gameBoard) {
-		this.board = new int[6][7];
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length; j++)
-				this.board[i][j] = gameBoard.board[i][j];
+		this.player = gameBoard.player;
+		this.opponent = gameBoard.opponent;
+		this.heights = gameBoard.heights;
+		this.hash = gameBoard.hash;
+		this.mirrorHash = gameBoard.mirrorHash;
+		this.playerCounts = gameBoard.playerCounts;
+		this.opponentCounts = gameBoard.opponentCounts;
+	}
+
+	/**
+	 * Constructor with a parameter used to set up the board after a list of moves. The players
+	 * take turns and the moves are given to the players so that the player is the side to move
+	 * after the last move.
+	 * Parameters:		@param moves the columns played from an empty board, in order
+	 */
+	public Board(int[] moves) {
+		this();
+		int turn = moves.length % 2 == 0 ? 1 : -1;
+		for (int move : moves) {
+			update(move, turn);
+			turn = -turn;
 		}
 	}
-	
+
 	/**
 	 * Method update
 	 * Purpose:			Used to update the game board as if a player made a move. The column
 	 * 					and the marker are given. The marker is placed until the row at the position
 	 * 					that does not contain another marker and is closest to the bottom.
-	 * Postcondition:	The game board is updated with the marker placed.
+	 * Postcondition:	The game board is updated with the marker placed and the counts of the player
+	 * 					are updated.
 	 * @param move		The column where the marker should be dropped.
 	 * @param turn		1 = player's turn. -1 = opponent's turn.
 	 */
 	public void update(int move, int turn) {
-		for (int i = board.length - 1; i >= 0; i--) {
-			if (board[i][move] == 0) {
-				board[i][move] = turn;
-				break;
-			}
+		int height = getHeight(move);
+		if (height == HEIGHT)
+			return;
+		int index = move * H1 + height;
+		int mirrorIndex = (WIDTH - 1 - move) * H1 + height;
+		long cell = 1L << index;
+		if (turn == 1) {
+			player |= cell;
+			playerCounts = counts(player);
+			hash ^= ZOBRIST[0][index];
+			mirrorHash ^= ZOBRIST[0][mirrorIndex];
+		}
+		else {
+			opponent |= cell;
+			opponentCounts = counts(opponent);
+			hash ^= ZOBRIST[1][index];
+			mirrorHash ^= ZOBRIST[1][mirrorIndex];
+		}
+		heights += 1 << (move * 3);
+	}
+
+	/**
+	 * Method undo
+	 * Purpose:			Used to take back the last marker dropped in a column so that a search can
+	 * 					walk the game tree on a single board instead of copying it for every move.
+	 * Precondition:	The column must contain at least one marker.
+	 * Postcondition:	The highest marker in the column is removed from the game board and the
+	 * 					counts of the player it belonged to are updated.
+	 * Parameters:		@param move the column where the last marker was dropped
+	 */
+	public void undo(int move) {
+		heights -= 1 << (move * 3);
+		int index = move * H1 + getHeight(move);
+		int mirrorIndex = (WIDTH - 1 - move) * H1 + getHeight(move);
+		long cell = 1L << index;
+		if ((player & cell) != 0) {
+			player &= ~cell;
+			playerCounts = counts(player);
+			hash ^= ZOBRIST[0][index];
+			mirrorHash ^= ZOBRIST[0][mirrorIndex];
+		}
+		else {
+			opponent &= ~cell;
+			opponentCounts = counts(opponent);
+			hash ^= ZOBRIST[1][index];
+			mirrorHash ^= ZOBRIST[1][mirrorIndex];
 		}
 	}
-	
+
 	/**
 	 * Method hasFinished
 	 * Purpose:			Used to determine if the game board is in a finished state. This is
@@ -60,17 +169,9 @@ public class Board {
 	 * Return:			@return true if game has finished
 	 */
 	public boolean hasFinished() {
-		if (hasWon(1) || hasWon(-1))
-			return true;
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length; j++) {
-				if(board[i][j] == 0)
-					return false;
-			}
-		}
-		return true;
+		return ((playerCounts | opponentCounts) & 0xFF) != 0 || (player | opponent) == BOARD_MASK;
 	}
-	
+
 	/**
 	 * Method isIllegal
 	 * Purpose:			Used to determine whether placing a marker in a column would be allowed
@@ -80,9 +181,7 @@ public class Board {
 	 * Return:			@return true if every row in the column specified has a marker in it.
 	 */
 	public boolean isIllegal(int column) {
-		if(board[0][column] == 0)
-			return false;
-		return true;
+		return getHeight(column) == HEIGHT;
 	}
 
 	/**
@@ -93,116 +192,314 @@ public class Board {
 	 * Return:			@return true if four markers are found in sequence.
 	 */
 	public boolean hasWon(int turn) {
-		//Checks for 4 together horizontally
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i][j+1] == turn && board[i][j+2] == turn && board[i][j+3] == turn)
-					return true;
-			}
-		}
-		//Checks for 4 together vertically
-		for (int i = 0; i < board.length - 3; i++) {
-			for (int j = 0; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i+1][j] == turn && board[i+2][j] == turn && board[i+3][j] == turn)
-					return true;
-			}
-		}
-		//Checks for 4 together diagonally with a positive slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i-1][j+1] == turn && board[i-2][j+2] == turn &&  board[i-3][j+3] == turn)
-					return true;
-			}
-		}
-		//Checks for 4 together diagonally with a negative slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 3; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i-1][j-1] == turn && board[i-2][j-2] == turn && board[i-3][j-3] == turn)
-					return true;
-			}
-		}
-		return false;
+		return ((turn == 1 ? playerCounts : opponentCounts) & 0xFF) != 0;
 	}
 
 	/**
 	 * Method threeTogetherCount
 	 * Purpose:			Used to count how many times a player has three markers in a sequence.
-	 * Postcondition:	Counts the amount of times a player has three markers together horizontally,
-	 * 					vertically, and diagonally.
+	 * Postcondition:	Returns the amount of times a player has three markers together horizontally,
+	 * 					vertically, and diagonally, as kept up to date by update and undo.
 	 * Parameters:		@param turn 1 = player's marker. -1 = opponent's marker
 	 * Return:			@return the amount of times a player has three markers together
 	 */
 	public int threeTogetherCount(int turn) {
-		int count = 0;
-		//Checks for 3 together horizontally
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i][j+1] == turn && board[i][j+2] == turn)
-					count++;
-			}
-		}
-		//Checks for 3 together vertically
-		for (int i = 0; i < board.length - 3; i++) {
-			for (int j = 0; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i+1][j] == turn && board[i+2][j] == turn)
-					count++;
-			}
-		}
-		//Checks for 3 together diagonally with a positive slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i-1][j+1] == turn && board[i-2][j+2] == turn)
-					count++;
-			}
-		}
-		//Checks for 3 together diagonally with a negative slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 3; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i-1][j-1] == turn && board[i-2][j-2] == turn)
-					count++;
-			}
-		}
-		return count;
+		return ((turn == 1 ? playerCounts : opponentCounts) >>> 8) & 0xFF;
 	}
 
 	/**
 	 * Method twoTogetherCount
 	 * Purpose:			Used to count how many times a player has two markers in a sequence.
-	 * Postcondition:	Counts the amount of times a player has tow markers together horizontally,
-	 * 					vertically, and diagonally.
+	 * Postcondition:	Returns the amount of times a player has two markers together horizontally,
+	 * 					vertically, and diagonally, as kept up to date by update and undo.
 	 * Parameters:		@param turn 1 = player's marker. -1 = opponent's marker
 	 * Return:			@return the amount of times a player has two markers together
 	 */
 	public int twoTogetherCount(int turn) {
-		int count = 0;
-		//Checks for 2 together horizontally
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i][j+1] == turn)
-					count++;
-			}
-		}
-		//Checks for 2 together vertically
-		for (int i = 0; i < board.length - 3; i++) {
-			for (int j = 0; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i+1][j] == turn)
-					count++;
-			}
+		return (turn == 1 ? playerCounts : opponentCounts) >>> 16;
+	}
+
+	/**
+	 * Method getMarkers
+	 * Purpose:			Used to return the bitboard of a player's markers, such as to pack many positions
+	 * 					into arrays of bitboards for the batch evaluator.
+	 * Parameters:		@param turn 1 = player's markers. -1 = opponent's markers
+	 * Return:			@return the bitboard of the markers
+	 */
+	public long getMarkers(int turn) {
+		return turn == 1 ? player : opponent;
+	}
+
+	/**
+	 * Method getMoveCount
+	 * Purpose:			Used to return how many markers have been dropped on the game board.
+	 * Postcondition:	Returns the amount of markers on the board.
+	 * Return:			@return the amount of markers on the board
+	 */
+	public int getMoveCount() {
+		return Long.bitCount(player | opponent);
+	}
+
+	/**
+	 * Method getKey
+	 * Purpose:			Used to return a key that is different for every position, unlike a hash which
+	 * 					two positions may share. Adding the bottom cell of every column to the markers
+	 * 					sets the bit above the highest marker of each column, and adding the player's
+	 * 					markers as well tells the two players apart. The key fits in 49 bits.
+	 * Postcondition:	Returns the key of the position.
+	 * Return:			@return the key of the position
+	 */
+	public long getKey() {
+		return player + (player | opponent) + BOTTOM_MASK;
+	}
+
+	/**
+	 * Method getCanonicalKey
+	 * Purpose:			Used to return a key that the position shares with its mirror image and with no
+	 * 					other position. It is the smaller of the key of the board and the key of its mirror.
+	 * Postcondition:	Returns the canonical key of the position.
+	 * Return:			@return the canonical key of the position
+	 */
+	public long getCanonicalKey() {
+		long key = getKey();
+		return Math.min(key, mirror(key));
+	}
+
+	/**
+	 * Method getHash
+	 * Purpose:			Used to return a 64-bit Zobrist hash of the position for the transposition table.
+	 * 					The hash is kept up to date by update and undo, and the side to move is mixed in
+	 * 					so that the same markers with a different player to move hash differently.
+	 * Postcondition:	Returns the hash of the board with the given side to move.
+	 * Parameters:		@param turn 1 = player's turn. -1 = opponent's turn
+	 * Return:			@return the hash of the position
+	 */
+	public long getHash(int turn) {
+		return turn == 1 ? hash : hash ^ OPPONENT_TO_MOVE;
+	}
+
+	/**
+	 * Method getCanonicalHash
+	 * Purpose:			Used to return a hash that the position shares with its mirror image, for results
+	 * 					that are the same for both, such as the scores of the solver. The smaller of the
+	 * 					hashes of the board and its mirror is used.
+	 * Postcondition:	Returns the canonical hash of the board with the given side to move.
+	 * Parameters:		@param turn 1 = player's turn. -1 = opponent's turn
+	 * Return:			@return the canonical hash of the position
+	 */
+	public long getCanonicalHash(int turn) {
+		long canonical = Math.min(hash, mirrorHash);
+		return turn == 1 ? canonical : canonical ^ OPPONENT_TO_MOVE;
+	}
+
+	/**
+	 * Method isSymmetric
+	 * Purpose:			Used to check whether the board is the same as its mirror image, as the empty
+	 * 					board is. A move and its mirrored move then lead to positions of the same result.
+	 * Postcondition:	Returns true if both players' markers are the same when mirrored.
+	 * Return:			@return true if the board is symmetric
+	 */
+	public boolean isSymmetric() {
+		return player == mirror(player) && opponent == mirror(opponent);
+	}
+
+	/**
+	 * Method getHeight
+	 * Purpose:			Used to return the amount of markers in a column.
+	 * Postcondition:	Returns the height of the column.
+	 * Parameters:		@param column the column tested
+	 * Return:			@return the amount of markers in the column
+	 */
+	public int getHeight(int column) {
+		return (heights >>> (column * 3)) & 7;
+	}
+
+	/**
+	 * Method playableCells
+	 * Purpose:			Used to return the cell a marker would land in for every column that is not full.
+	 * 					Adding the bottom cell of every column to the markers carries each one up to the
+	 * 					empty cell above the highest marker.
+	 * Postcondition:	Returns a bitboard of the cells that can be played.
+	 * Return:			@return the playable cells
+	 */
+	public long playableCells() {
+		return ((player | opponent) + BOTTOM_MASK) & BOARD_MASK;
+	}
+
+	/**
+	 * Method winningCells
+	 * Purpose:			Used to find the empty cells that would complete four together for a player,
+	 * 					whether or not a marker can be dropped into them yet.
+	 * Postcondition:	Returns a bitboard of the winning cells.
+	 * Parameters:		@param turn 1 = player's markers. -1 = opponent's markers
+	 * Return:			@return the winning cells
+	 */
+	public long winningCells(int turn) {
+		return winningCells(turn == 1 ? player : opponent, player | opponent);
+	}
+
+	/**
+	 * Method winningCellsAfter
+	 * Purpose:			Used to find the winning cells a player would have after dropping a marker in a
+	 * 					column, without changing the board.
+	 * Precondition:	The column must not be full.
+	 * Postcondition:	Returns a bitboard of the winning cells after the move.
+	 * Parameters:		@param column the column the marker is dropped in
+	 * 					@param turn 1 = player's markers. -1 = opponent's markers
+	 * Return:			@return the winning cells after the move
+	 */
+	public long winningCellsAfter(int column, int turn) {
+		long cell = 1L << (column * H1 + getHeight(column));
+		return winningCells((turn == 1 ? player : opponent) | cell, player | opponent | cell);
+	}
+
+	/**
+	 * Method candidateCells
+	 * Purpose:			Used to find the moves worth playing once the threats on the board are taken
+	 * 					into account:
+	 * 						1.	If the side to move can win straight away, only the winning moves;
+	 * 						2.	If the other side has one winning cell that can be played, only the
+	 * 							move that blocks it;
+	 * 						3.	Otherwise every move except those that drop a marker right below a
+	 * 							winning cell of the other side, which would let it win next.
+	 * Postcondition:	Returns a bitboard of the cells worth playing, or zero if the side to move
+	 * 					loses whatever it plays, such as when the other side has two winning cells that
+	 * 					can be played.
+	 * Parameters:		@param turn 1 = player's turn. -1 = opponent's turn
+	 * Return:			@return the cells worth playing, or zero for a lost position
+	 */
+	public long candidateCells(int turn) {
+		long playable = playableCells();
+		long wins = winningCells(turn) & playable;
+		if (wins != 0)
+			return wins;
+		long threats = winningCells(-turn);
+		long forced = playable & threats;
+		if (Long.bitCount(forced) > 1)
+			return 0;
+		long candidates = playable & ~(threats >>> 1);
+		return forced != 0 ? candidates & forced : candidates;
+	}
+
+	/**
+	 * Method columnCells
+	 * Purpose:			Used to return a mask of every cell of a column.
+	 * Parameters:		@param column the column of the mask
+	 * Return:			@return the cells of the column
+	 */
+	public static long columnCells(int column) {
+		return cells(column, column, 0, HEIGHT - 1);
+	}
+
+	/**
+	 * Method mirror
+	 * Purpose:			Used to mirror a bitboard or key from left to right by reversing the order of
+	 * 					its columns. Each column keeps its seven bits, so the empty bit above each column
+	 * 					moves with it.
+	 * Postcondition:	Returns the mirrored bitboard.
+	 * Parameters:		@param bits the bitboard or key mirrored
+	 * Return:			@return the mirrored bitboard
+	 */
+	private static long mirror(long bits) {
+		long mirrored = 0;
+		for (int column = 0; column < WIDTH; column++)
+			mirrored |= ((bits >>> (column * H1)) & COLUMN_MASK) << ((WIDTH - 1 - column) * H1);
+		return mirrored;
+	}
+
+	/**
+	 * Method winningCells
+	 * Purpose:			Used to find the empty cells that complete four together with a player's markers.
+	 * 					For each direction, shifting the bitboard lines up the three other cells of every
+	 * 					sequence of four with its missing cell, for each place the missing cell can be.
+	 * Postcondition:	Returns a bitboard of the winning cells.
+	 * Parameters:		@param m the bitboard of the player's markers
+	 * 					@param occupied the bitboard of every marker
+	 * Return:			@return the winning cells
+	 */
+	private static long winningCells(long m, long occupied) {
+		long r = (m << 1) & (m << 2) & (m << 3);				//Vertically
+		for (int shift : DIRECTIONS) {							//Horizontally and diagonally
+			long pair = (m << shift) & (m << 2 * shift);
+			r |= pair & (m << 3 * shift);
+			r |= pair & (m >>> shift);
+			pair = (m >>> shift) & (m >>> 2 * shift);
+			r |= pair & (m << shift);
+			r |= pair & (m >>> 3 * shift);
 		}
-		//Checks for 2 together diagonally with a positive slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 0; j < board[i].length - 3; j++) {
-				if (board[i][j] == turn && board[i-1][j+1] == turn)
-					count++;
-			}
+		return r & (BOARD_MASK ^ occupied);
+	}
+
+	/**
+	 * Method counts
+	 * Purpose:			Used to count the sequences of a player's markers in one pass over the bitboard.
+	 * 					Shifting a bitboard lines up the next cell of every sequence in a direction with
+	 * 					its first cell, so after two, three and four shifts the set bits are the first
+	 * 					cells of the sequences of two, three and four markers. Only the sequences that
+	 * 					fit in the board from their first cell are counted for two and three together.
+	 * 					The batch evaluators count bitboards that are not held by a board the same way.
+	 * Postcondition:	Returns the amounts of four, three and two together packed into the first,
+	 * 					second and third byte.
+	 * Parameters:		@param m the bitboard of the player's markers
+	 * Return:			@return the packed counts
+	 */
+	static int counts(long m) {
+		long p2 = m & (m >>> H1);								//Horizontally
+		long p3 = p2 & (m >>> 2 * H1);
+		int fours = Long.bitCount(p3 & (m >>> 3 * H1));
+		int threes = Long.bitCount(p3 & HORIZONTAL_START);
+		int twos = Long.bitCount(p2 & HORIZONTAL_START);
+		p2 = m & (m << 1);										//Vertically
+		p3 = p2 & (m << 2);
+		fours += Long.bitCount(p3 & (m << 3));
+		threes += Long.bitCount(p3 & VERTICAL_START);
+		twos += Long.bitCount(p2 & VERTICAL_START);
+		p2 = m & (m >>> (H1 + 1));								//Diagonally with a positive slope
+		p3 = p2 & (m >>> 2 * (H1 + 1));
+		fours += Long.bitCount(p3 & (m >>> 3 * (H1 + 1)));
+		threes += Long.bitCount(p3 & POSITIVE_START);
+		twos += Long.bitCount(p2 & POSITIVE_START);
+		p2 = m & (m << (H1 - 1));								//Diagonally with a negative slope
+		p3 = p2 & (m << 2 * (H1 - 1));
+		fours += Long.bitCount(p3 & (m << 3 * (H1 - 1)));
+		threes += Long.bitCount(p3 & NEGATIVE_START);
+		twos += Long.bitCount(p2 & NEGATIVE_START);
+		return fours | threes << 8 | twos << 16;
+	}
+
+	/**
+	 * Method zobristKeys
+	 * Purpose:			Used to create the random keys that are combined into the hash of a position.
+	 * 					A fixed seed is used so hashes are the same every time the engine runs.
+	 * Postcondition:	Returns one key for each player on each bit of the bitboards.
+	 * Return:			@return the table of keys
+	 */
+	private static long[][] zobristKeys() {
+		Random random = new Random(3307768);
+		long[][] keys = new long[2][WIDTH * H1];
+		for (int i = 0; i < keys.length; i++) {
+			for (int j = 0; j < keys[i].length; j++)
+				keys[i][j] = random.nextLong();
 		}
-		//Checks for 2 together diagonally with a negative slope
-		for (int i = 3; i < board.length; i++) {
-			for (int j = 3; j < board[i].length; j++) {
-				if (board[i][j] == turn && board[i-1][j-1] == turn)
-					count++;
-			}
+		return keys;
+	}
+
+	/**
+	 * Method cells
+	 * Purpose:			Used to build a mask of every cell within a range of columns and heights.
+	 * Postcondition:	Returns the mask with a bit set for each cell in the range.
+	 * Parameters:		@param firstColumn the leftmost column
+	 * 					@param lastColumn the rightmost column
+	 * 					@param firstHeight the lowest row, counted from the bottom
+	 * 					@param lastHeight the highest row, counted from the bottom
+	 * Return:			@return the mask of cells
+	 */
+	private static long cells(int firstColumn, int lastColumn, int firstHeight, int lastHeight) {
+		long mask = 0;
+		for (int column = firstColumn; column <= lastColumn; column++) {
+			for (int height = firstHeight; height <= lastHeight; height++)
+				mask |= 1L << (column * H1 + height);
 		}
-		return count;
+		return mask;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class:			BookBuilder
+ * Purpose:			Used to build the opening book offline. Every position that can be reached in
+ * 					fewer than the given amount of plies is searched to a fixed depth with the engine's
+ * 					own search, and its best move and score are written to the book in the format read
+ * 					by OpeningBook. A position reached through a different order of moves, or the mirror
+ * 					image of a position already searched, is only searched once, and finished games are
+ * 					left out.
+ * 					Usage: java BookBuilder [plies] [depth] [file]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class BookBuilder {
+	private TranspositionTable table;	//Shared by every search so later positions reuse results
+	private TreeMap<Long, Integer> entries;	//The packed entry of each position, sorted by key
+	private int[] moves;		//The moves played to reach the current position
+	private int plies;			//The amount of plies the book covers
+	private int depth;			//The depth each position is searched to
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param plies the amount of plies the book covers
+	 * 					@param depth the depth each position is searched to
+	 */
+	public BookBuilder(int plies, int depth) {
+		this.table = new TranspositionTable(64);
+		this.entries = new TreeMap<Long, Integer>();
+		this.moves = new int[plies];
+		this.plies = plies;
+		this.depth = depth;
+	}
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that builds the book and writes it to a file.
+	 * Postcondition:	The book is written and the amount of positions is printed.
+	 */
+	public static void main(String[] args) throws IOException {
+		int plies = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 14;
+		Path path = Paths.get(args.length > 2 ? args[2] : Engine.BOOK_FILE);
+		BookBuilder builder = new BookBuilder(plies, depth);
+		long start = System.nanoTime();
+		builder.add(0);
+		builder.write(path);
+		System.out.printf("%d positions written to %s in %.1f s%n", builder.entries.size(), path,
+				(System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Method add
+	 * Purpose:			Used to search the current position and every position after it with recursion.
+	 * Postcondition:	Every new position up to the amount of plies is added to the entries.
+	 * Parameters:		@param ply the amount of moves played to reach the current position
+	 */
+	private void add(int ply) {
+		int[] played = new int[ply];
+		System.arraycopy(moves, 0, played, 0, ply);
+		Board board = new Board(played);
+		long key = board.getCanonicalKey();
+		if (board.hasFinished() || entries.containsKey(key))
+			return;
+		table.newSearch();
+		Search search = new Search(board, table);
+		int move = search.bestMove(depth, 0);
+		int entry = OpeningBook.entry(move, search.getBestScore());
+		entries.put(key, key == board.getKey() ? entry : OpeningBook.mirror(entry));
+		if (ply + 1 >= plies)
+			return;
+		for (int i = 0; i < Board.WIDTH; i++) {
+			if (board.isIllegal(i))
+				continue;
+			moves[ply] = i;
+			add(ply + 1);
+		}
+	}
+
+	/**
+	 * Method write
+	 * Purpose:			Used to write the header and the sorted entries of the book to a file.
+	 * Postcondition:	The file holds the book, replacing anything it held before.
+	 * Parameters:		@param path the file the book is written to
+	 */
+	private void write(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(plies);
+			out.writeInt(entries.size());
+			for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+				out.writeLong(entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+		}
+	}
+}
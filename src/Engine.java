@@ -1,3 +1,10 @@
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
 /**
  * Class:			Engine
  * Purpose:			Used to store the current state of the board and retrieve any relevant information
@@ -6,17 +13,85 @@
  * Student Number:	3307768
  */
 public class Engine {
+	private static final int DEPTH = 7;				//The depth searched when no time is given
+	private static final long TIME_MARGIN = 50;		//The time kept on the clock for replying
+	private static final int SOLVER_CELLS = 24;		//The empty cells at which positions are solved
+	public static final String BOOK_FILE = "book.bin";	//The opening book read when no other is set
 	private String name;		//The name of the engine
 	private Board board;		//The game board used for the connect four game
-	private Tree gameTree;		//The game tree used for searching and performance testing
+	private int[] history;		//The columns played in the game so far, in order
+	private int[] turns;		//The side that played each column of the history
+	private Search search;		//The search used to find the best move, kept for the whole game
+	private TranspositionTable table;	//The results of searched positions, kept between moves
+	private OpeningBook book;	//The best moves of the positions at the start of a game
+	private PositionStore store;	//The results kept on disk between games and processes, or null
+	private TranspositionTable solverTable;	//The results of solved positions, kept between moves
+	private int solverCells;	//The empty cells at which positions are solved instead of searched
+	private int depth;			//The depth searched when no time is given
+	private boolean threats;	//True if the search prunes moves by the threats on the board
+	private long nodes;			//The amount of positions searched for the last move
+	private int bestScore;		//The value of the evaluation function after the last move
+	private String result;		//The score of the last move as sent to the coordinator
+	private int[] bestLine;		//The moves expected from the last move on, starting with it
+	private int threads;		//The amount of threads used by the search
+	private ExecutorService workers;	//The threads that help the search, or null for one thread
+	private boolean shared;		//True if the tables, book and threads are shared with other engines
+	private Perft perft;		//The performance test, counting positions straight from the board
+	private boolean ponderEnabled;	//True if the engine searches on the opponent's time
+	private Ponder ponder;		//The search on the opponent's time, or null when not pondering
+	private Thread ponderThread;	//The thread pondering runs on
+	private Consumer<String> info;	//Given an info line after each iteration of the search, or null
+	private SearchStatistics statistics;	//The statistics of the last search, or null if not searched
+	private AnalysisTree analysis;	//The lines found by analysing the current position, or null
 	
 	/**
-	 * Default constructor used to initialize all global variables.
+	 * Default constructor used to initialize all global variables for an engine that owns its
+	 * transposition tables, opening book and threads. Like every engine, it does not ponder unless
+	 * asked to, so it leaves the computer to any other engine while it waits.
 	 */
 	public Engine() {
+		this(new TranspositionTable(16), new TranspositionTable(16), new OpeningBook(Paths.get(BOOK_FILE)), 1, null);
+		this.shared = false;
+	}
+
+	/**
+	 * Constructor with parameters for an engine that shares its transposition tables, opening book
+	 * and helper threads with other engines in the same program. The shared tables are never
+	 * cleared or resized by the engine, and it does not ponder unless asked to.
+	 * Parameters:		@param table the transposition table of the search
+	 * 					@param solverTable the transposition table of the solver
+	 * 					@param book the opening book
+	 * 					@param threads the amount of threads each search uses
+	 * 					@param workers the threads that help the searches, or null for one thread
+	 */
+	public Engine(TranspositionTable table, TranspositionTable solverTable, OpeningBook book, int threads,
+			ExecutorService workers) {
 		this.name = "testEngine-c3307768";
 		this.board = new Board();
-		this.gameTree = null;
+		this.history = new int[Board.WIDTH * Board.HEIGHT];
+		this.turns = new int[Board.WIDTH * Board.HEIGHT];
+		this.search = null;
+		this.table = table;
+		this.book = book;
+		this.store = null;
+		this.solverTable = solverTable;
+		this.solverCells = SOLVER_CELLS;
+		this.depth = DEPTH;
+		this.threats = true;
+		this.nodes = 0;
+		this.bestScore = 0;
+		this.result = "0";
+		this.bestLine = new int[0];
+		this.threads = Math.max(1, threads);
+		this.workers = workers;
+		this.shared = true;
+		this.perft = null;
+		this.ponderEnabled = false;
+		this.ponder = null;
+		this.ponderThread = null;
+		this.info = null;
+		this.statistics = null;
+		this.analysis = null;
 	}
 
 	/**
@@ -29,58 +104,504 @@ public class Engine {
 		return name;
 	}
 	
+	/**
+	 * Method setInfo
+	 * Purpose:			Used to send how the search is going to the coordinator while it runs.
+	 * Postcondition:	An info line is given to the consumer after each iteration of the search.
+	 * Parameters:		@param info the consumer of the info lines, or null for none
+	 */
+	public void setInfo(Consumer<String> info) {
+		this.info = info;
+	}
+
+	/**
+	 * Method setOption
+	 * Purpose:			Used to change a setting of the engine from the coordinator. The supported
+	 * 					settings are:
+	 * 						hash	=	The memory used by the transposition table in megabytes;
+	 * 						threads	=	The amount of threads used by the search;
+	 * 						book	=	The file the opening book is read from;
+	 * 						store	=	The file of the store of solved and searched positions;
+	 * 						solver	=	The amount of empty cells at which positions are solved, when
+	 * 									there is a time limit or the fixed depth reaches that far;
+	 * 						ponder	=	"true" to search on the opponent's time, "false" otherwise, which
+	 * 									is the default;
+	 * 						depth	=	The depth searched when no time is given;
+	 * 						threats	=	"true" to prune moves by the threats on the board, "false" to
+	 * 									search every legal move.
+	 * 					The hash, threads and book settings are shared and cannot be changed by an engine
+	 * 					that shares them.
+	 * Postcondition:	The setting is changed. Unknown settings and invalid values are ignored.
+	 * Parameters:		@param name the name of the setting
+	 * 					@param value the new value of the setting
+	 */
+	public void setOption(String name, String value) {
+		stopPondering();
+		try {
+			if (shared && (name.equals("hash") || name.equals("threads") || name.equals("book")))
+				return;
+			if (name.equals("hash"))
+				table.resize(Math.max(1, Integer.parseInt(value)));
+			else if (name.equals("threads"))
+				setThreads(Integer.parseInt(value));
+			else if (name.equals("book"))
+				this.book = new OpeningBook(Paths.get(value));
+			else if (name.equals("store"))
+				this.store = PositionStore.open(Paths.get(value));
+			else if (name.equals("solver"))
+				this.solverCells = Integer.parseInt(value);
+			else if (name.equals("ponder"))
+				this.ponderEnabled = Boolean.parseBoolean(value);
+			else if (name.equals("depth"))
+				this.depth = Math.max(1, Integer.parseInt(value));
+			else if (name.equals("threats"))
+				this.threats = Boolean.parseBoolean(value);
+		}
+		catch (NumberFormatException | InvalidPathException | IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Method setThreads
+	 * Purpose:			Used to change the amount of threads used by the search. The helper threads are
+	 * 					daemon threads so they never keep the program running after it quits.
+	 * Postcondition:	The threads that help the search are replaced.
+	 * Parameters:		@param amount the amount of threads, including the thread of the engine
+	 */
+	public void setThreads(int amount) {
+		if (workers != null)
+			workers.shutdown();
+		this.threads = Math.max(1, amount);
+		this.workers = null;
+		if (threads > 1) {
+			this.workers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Method newGame
+	 * Purpose:			Used to start a new game, forgetting the board and everything the search has
+	 * 					learned. Within a game the transposition table, the killer and history scores
+	 * 					and the best line are all kept from one move to the next.
+	 * Postcondition:	The board is empty, the search is discarded and the transposition tables are
+	 * 					cleared unless they are shared with other engines.
+	 */
+	public void newGame() {
+		stopPondering();
+		this.board = new Board();
+		this.search = null;
+		this.bestScore = 0;
+		this.result = "0";
+		this.bestLine = new int[0];
+		this.analysis = null;
+		if (!shared) {
+			table.clear();
+			solverTable.clear();
+		}
+	}
+
 	/**
 	 * Method updateBoard
-	 * Purpose:			Used to update the board with the column given.
+	 * Purpose:			Used to update the board with the column given. Pondering carries on if the
+	 * 					opponent played the expected reply and is stopped otherwise.
 	 * Postcondition:	Calls the board's function update to update the the game's board with
 	 * 					the given column and player's turn.
 	 * Parameters:		@param column the position to place the marker
 	 * 					@param turn 1 = player's turn. -1 = opponent's turn
 	 */
 	public void updateBoard(int column, int turn) {
+		if (ponder != null && !(turn == -1 && ponder.isExpected(column)))
+			stopPondering();
+		record(column, turn);
 		board.update(column, turn);
+		this.analysis = null;
+	}
+
+	/**
+	 * Method setPosition
+	 * Purpose:			Used to set the board to the game given as every column played from an empty
+	 * 					board, with the player to move after the last one. If the game carries on from the
+	 * 					moves the engine already knows, only the new moves are played, so pondering and
+	 * 					what the search has learned are kept as they would be by updateBoard. Otherwise
+	 * 					the board is made again from the moves and the search starts afresh, keeping the
+	 * 					transposition tables.
+	 * Postcondition:	Returns true and the board is set if the moves make a legal game, and returns
+	 * 					false and leaves the board as it was otherwise.
+	 * Parameters:		@param moves the columns played from an empty board
+	 * Return:			@return true if the board was set
+	 */
+	public boolean setPosition(int[] moves) {
+		Board position = new Board();
+		for (int i = 0; i < moves.length; i++) {
+			if (moves[i] < 0 || moves[i] >= Board.WIDTH || position.isIllegal(moves[i]) || position.hasFinished())
+				return false;
+			position.update(moves[i], (moves.length - i) % 2 == 0 ? 1 : -1);
+		}
+		int count = board.getMoveCount();
+		boolean follows = moves.length >= count;
+		for (int i = 0; i < count && follows; i++)
+			follows = history[i] == moves[i] && turns[i] == ((moves.length - i) % 2 == 0 ? 1 : -1);
+		if (follows) {
+			for (int i = count; i < moves.length; i++)
+				updateBoard(moves[i], (moves.length - i) % 2 == 0 ? 1 : -1);
+			return true;
+		}
+		stopPondering();
+		this.board = position;
+		for (int i = 0; i < moves.length; i++) {
+			history[i] = moves[i];
+			turns[i] = (moves.length - i) % 2 == 0 ? 1 : -1;
+		}
+		this.search = null;
+		this.bestScore = 0;
+		this.result = "0";
+		this.bestLine = new int[0];
+		this.analysis = null;
+		return true;
+	}
+
+	/**
+	 * Method record
+	 * Purpose:			Used to add a move to the history of the game before it is played on the board.
+	 * Parameters:		@param column the column played
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 */
+	private void record(int column, int turn) {
+		int count = board.getMoveCount();
+		if (count < history.length) {
+			history[count] = column;
+			turns[count] = turn;
+		}
 	}
 	
 	/**
 	 * Method bestMove
-	 * Purpose:			Used to create a game tree and call it's best move function to return
-	 * 					the column the next marker would be best in. It then updates the game board
-	 * 					with the best move and returns the column.
-	 * Postcondition:	The game tree is created and the searching algorithm is used to determine the
-	 * 					best column to place the next marker in. The board is updated and the column number
-	 * 					is returned to the coordinator.
+	 * Purpose:			Used to search the game board and return the column the next marker would be
+	 * 					best in. It then updates the game board with the best move and returns the column.
+	 * 					With a time limit the search deepens until the time runs out, otherwise it
+	 * 					searches to a fixed depth. A position held in the opening book or the store of
+	 * 					positions is not searched, and a position with few empty cells left is solved
+	 * 					exactly, with half of the time, before falling back to the search if the solver
+	 * 					runs out of time, or without a time limit once the fixed depth reaches the end of
+	 * 					the game. Solved positions and deep searches are added to the store.
+	 * Postcondition:	The searching algorithm is used on the board to determine the best column to
+	 * 					place the next marker in. The board is updated and the column number is returned
+	 * 					to the coordinator.
+	 * Parameters:		@param milliseconds the time the search may use, or zero to search to a fixed depth
 	 * Return:			@return the best move possible
 	 */
-	public int bestMove() {
-		this.gameTree = new Tree(board, 7);
-		int column = gameTree.bestMove();
+	public int bestMove(long milliseconds) {
+		stopPondering();
+		long start = System.currentTimeMillis();
+		int count = board.getMoveCount();
+		int entry = book.probe(board);
+		int column = -1;
+		int expected = -1;
+		this.nodes = 0;
+		this.statistics = null;
+		if (entry != OpeningBook.NOT_FOUND) {
+			column = OpeningBook.move(entry);
+			this.bestScore = OpeningBook.score(entry);
+			this.result = Integer.toString(bestScore);
+			this.bestLine = new int[] {column};
+		}
+		else if ((entry = stored(milliseconds)) != PositionStore.NOT_FOUND) {
+			column = PositionStore.move(entry);
+			this.bestScore = PositionStore.score(entry);
+			if (PositionStore.isSolved(entry))
+				this.result = Solver.describe(bestScore, count);
+			else
+				this.result = Integer.toString(bestScore);
+			this.bestLine = new int[] {column};
+		}
+		else if (solves(milliseconds)) {
+			Solver solver = new Solver(board, solverTable);
+			solverTable.newSearch();
+			column = solver.bestMove(milliseconds > 0 ? Math.max(1, milliseconds / 2) : 0);
+			this.nodes = solver.getNodes();
+			if (column >= 0) {
+				this.bestScore = solver.getScore();
+				this.result = Solver.describe(bestScore, count);
+				this.bestLine = new int[] {column};
+				if (store != null)
+					store.add(board, column, bestScore, Board.WIDTH * Board.HEIGHT - count, true);
+			}
+		}
+		if (column < 0) {
+			if (milliseconds > 0)
+				milliseconds = Math.max(1, milliseconds - (System.currentTimeMillis() - start));
+			table.newSearch();
+			if (search == null)
+				this.search = new Search(board, table);
+			else
+				search.setPosition(board);
+			search.setThreads(threads, workers);
+			search.setThreats(threats);
+			search.setListener(info == null ? null : statistics -> info.accept(statistics.toString()));
+			column = search.bestMove(milliseconds > 0 ? Board.WIDTH * Board.HEIGHT : depth, milliseconds);
+			this.nodes += search.getNodes();
+			this.bestScore = search.getBestScore();
+			this.result = Integer.toString(bestScore);
+			expected = search.getExpectedReply();
+			this.bestLine = search.getBestLine();
+			this.statistics = search.getStatistics();
+			if (store != null && search.getCompletedDepth() >= PositionStore.MIN_DEPTH)
+				store.add(board, column, bestScore, search.getCompletedDepth(), false);
+		}
+		record(column, 1);
 		board.update(column, 1);
+		this.analysis = null;
+		startPondering(expected, milliseconds);
 		return column;
 	}
+
+	/**
+	 * Method analyse
+	 * Purpose:			Used to find the best few moves of the current position without playing any of
+	 * 					them. The best move is searched for first, then the best move other than it, and so
+	 * 					on. With a time limit the best move is searched with an even share of the time, and
+	 * 					each other move is then searched to the depth the best move reached whatever the
+	 * 					time, so that every move is ranked by a score of the same depth. The search of a
+	 * 					move other than the best is usually quicker, as the table already holds most of
+	 * 					its positions, but the analysis can take a little longer than the time given.
+	 * 					Without a time limit every move is searched to the fixed depth. The line of each
+	 * 					iteration is added to the analysis tree of the position, which is kept until the
+	 * 					board changes, so analysing the same position again deepens the same tree. An
+	 * 					info line is sent after each iteration, with the number of the line searched.
+	 * 					The position is only analysed when the engine is to move, as the search always
+	 * 					moves for the engine. After the engine's own move the tree is left empty.
+	 * Postcondition:	Returns the analysis tree of the position. The board is not changed.
+	 * Parameters:		@param lines the amount of best moves found
+	 * 					@param milliseconds the time the analysis may use, or zero to search to a fixed depth
+	 * Return:			@return the analysis tree, whose ranked root children are the best moves found
+	 */
+	public AnalysisTree analyse(int lines, long milliseconds) {
+		stopPondering();
+		if (analysis == null)
+			this.analysis = new AnalysisTree(board);
+		int count = board.getMoveCount();
+		if (board.hasFinished() || (count > 0 && turns[count - 1] == 1))
+			return analysis;
+		int legal = 0;
+		for (int column = 0; column < Board.WIDTH; column++) {
+			if (!board.isIllegal(column))
+				legal++;
+		}
+		lines = Math.max(1, Math.min(lines, legal));
+		table.newSearch();
+		Search analysisSearch = new Search(board, table);
+		analysisSearch.setThreads(threads, workers);
+		analysisSearch.setThreats(threats);
+		int maxDepth = milliseconds > 0 ? Board.WIDTH * Board.HEIGHT : depth;
+		for (int i = 1; i <= lines; i++) {
+			String prefix = "info multipv " + i + " ";
+			analysisSearch.setListener(statistics -> {
+				analysis.addLine(statistics.getLine(), statistics.getScore(), statistics.getDepth());
+				if (info != null)
+					info.accept(prefix + statistics.toString().substring(5));
+			});
+			int column = analysisSearch.bestMove(maxDepth, i == 1 && milliseconds > 0 ? Math.max(1, milliseconds / lines) : 0);
+			analysisSearch.exclude(column);
+			if (i == 1)
+				maxDepth = Math.max(1, analysisSearch.getCompletedDepth());
+		}
+		return analysis;
+	}
+
+	/**
+	 * Method stored
+	 * Purpose:			Used to look up the position in the store of solved and searched positions. A
+	 * 					solved position is always used. A searched position is only used when the solver
+	 * 					would not be, and when it was searched at least as deep as this move would be: the
+	 * 					fixed depth without a time limit, or the depth the last search reached with one.
+	 * Parameters:		@param milliseconds the time the search may use, or zero to search to a fixed depth
+	 * Return:			@return the packed result of the position, or NOT_FOUND if there is none to use
+	 */
+	private int stored(long milliseconds) {
+		if (store == null)
+			return PositionStore.NOT_FOUND;
+		int stored = store.probe(board);
+		if (stored == PositionStore.NOT_FOUND || PositionStore.isSolved(stored))
+			return stored;
+		int needed = depth;
+		if (milliseconds > 0)
+			needed = Math.max(PositionStore.MIN_DEPTH, search == null ? 0 : search.getCompletedDepth());
+		if (solves(milliseconds) || PositionStore.depth(stored) < needed)
+			return PositionStore.NOT_FOUND;
+		return stored;
+	}
+
+	/**
+	 * Method solves
+	 * Purpose:			Used to decide whether the position is solved instead of searched. With a time limit
+	 * 					it is solved once the empty cells left are no more than the solver setting, as the
+	 * 					solver is stopped when its share of the time runs out. Without a time limit nothing
+	 * 					stops the solver, so it is only used once the empty cells are also no more than the
+	 * 					fixed depth, where the search would reach the end of the game as well.
+	 * Parameters:		@param milliseconds the time the search may use, or zero to search to a fixed depth
+	 * Return:			@return true if the position is solved
+	 */
+	private boolean solves(long milliseconds) {
+		int emptyCells = Board.WIDTH * Board.HEIGHT - board.getMoveCount();
+		return emptyCells <= solverCells && (milliseconds > 0 || emptyCells <= depth);
+	}
+
+	/**
+	 * Method startPondering
+	 * Purpose:			Used to start searching on the opponent's time after the engine has moved. No
+	 * 					pondering is done once the game has finished or the next position will be
+	 * 					solved, as the solver needs no help.
+	 * Postcondition:	Pondering runs on a daemon thread if it is enabled.
+	 * Parameters:		@param expected the reply the search expects, or -1 to search every reply
+	 * 					@param milliseconds the time given for this move, or zero for a fixed depth, as
+	 * 					the next move is expected to be given the same
+	 */
+	private void startPondering(int expected, long milliseconds) {
+		if (!ponderEnabled || board.hasFinished()
+				|| Board.WIDTH * Board.HEIGHT - board.getMoveCount() - 1 <= solverCells)
+			return;
+		int maxDepth = milliseconds > 0 ? Board.WIDTH * Board.HEIGHT : depth;
+		this.ponder = new Ponder(board, table, expected, maxDepth, threats, threads, workers);
+		this.ponderThread = new Thread(ponder, "ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+	/**
+	 * Method stopPondering
+	 * Purpose:			Used to stop searching on the opponent's time and wait for the search to end,
+	 * 					so the board and transposition table can be used again.
+	 * Postcondition:	No search is running on the opponent's time.
+	 */
+	private void stopPondering() {
+		if (ponder == null)
+			return;
+		ponder.stop();
+		try {
+			ponderThread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.ponder = null;
+		this.ponderThread = null;
+	}
 	
+	/**
+	 * Method timeForMove
+	 * Purpose:			Used to decide how much of the time left on the engine's clock to spend on the
+	 * 					next move. The time is shared evenly between the moves the engine has left to
+	 * 					make, and most of the increment is added as it is given back after the move.
+	 * Postcondition:	Returns the time for the move, which always leaves some of the clock unused.
+	 * Parameters:		@param time the time left on the engine's clock in milliseconds
+	 * 					@param increment the time added to the clock after each move in milliseconds
+	 * Return:			@return the time to spend on the move in milliseconds
+	 */
+	public long timeForMove(long time, long increment) {
+		int movesLeft = (Board.WIDTH * Board.HEIGHT - board.getMoveCount() + 1) / 2;
+		long budget = time / Math.max(1, movesLeft) + increment * 3 / 4;
+		return Math.max(1, Math.min(budget, time - TIME_MARGIN));
+	}
+
 	/**
 	 * Method getScore
-	 * Purpose:			Used to call the game tree to retrieve the value of an evaluation function
-	 * 					after a move.
-	 * Precondition:	The Tree collection must have been created and the best move function must have been
-	 * 					called.
+	 * Purpose:			Used to retrieve the value of an evaluation function after a move, from the
+	 * 					search or the opening book.
+	 * Precondition:	The best move function must have been called.
 	 * Postcondition:	The evaluation function after a move is returned.
 	 * Return:			@return the evaluation function
 	 */
 	public int getScore() {
-		return gameTree.getBestScore();
+		return bestScore;
+	}
+
+	/**
+	 * Method getNodes
+	 * Purpose:			Used to retrieve the amount of positions searched and solved for the last move.
+	 * Postcondition:	Returns zero if the move came from the opening book.
+	 * Return:			@return the amount of positions searched for the last move
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Method getStatistics
+	 * Purpose:			Used to retrieve the statistics of the search for the last move, such as the
+	 * 					positions searched each second and the share of cut offs caused by the first move.
+	 * Postcondition:	Returns null if the move came from the opening book or the solver.
+	 * Return:			@return the statistics of the last search
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Method getBestLine
+	 * Purpose:			Used to retrieve the principal variation of the last move, the moves the search
+	 * 					expects both sides to play from the move on. A move from the opening book or the
+	 * 					solver is given on its own.
+	 * Precondition:	The best move function must have been called.
+	 * Return:			@return the moves of the principal variation, starting with the last move
+	 */
+	public int[] getBestLine() {
+		return bestLine.clone();
+	}
+
+	/**
+	 * Method getResult
+	 * Purpose:			Used to retrieve the score of the last move as it is sent to the coordinator. A
+	 * 					solved position is sent as the proven result and the amount of moves left until
+	 * 					it, such as "win 5", and any other position as the value of the evaluation.
+	 * Precondition:	The best move function must have been called.
+	 * Return:			@return the score of the last move
+	 */
+	public String getResult() {
+		return result;
 	}
 
 	/**
 	 * Method perftStart
-	 * Purpose:			Creates a new game tree with the given depth and calls the tree's perft function
-	 * 					to return the number of nodes in the tree at its current position.
-	 * Postcondition:	Returns the amount of nodes in the tree. 
-	 * Parameters:		@param depth the depth the game tree is expanded to
-	 * Return:			@return the number of nodes in the game tree
-	 */
-	public int perftStart(int depth) {
-		this.gameTree = new Tree(board, depth);
-		return gameTree.perftFunction(depth);
+	 * Purpose:			Used to count the number of positions at the given depth from the current
+	 * 					position, with the threads of the engine sharing the root moves.
+	 * Postcondition:	Returns the amount of positions at the given depth.
+	 * Parameters:		@param depth the depth the count is expanded to
+	 * Return:			@return the number of positions at the given depth
+	 */
+	public long perftStart(int depth) {
+		return getPerft().count(board, depth);
+	}
+
+	/**
+	 * Method perftDivide
+	 * Purpose:			Used to count the number of positions at the given depth below each move from
+	 * 					the current position.
+	 * Postcondition:	Returns the amount of positions below each column, with -1 for a column that
+	 * 					cannot be played.
+	 * Parameters:		@param depth the depth the count is expanded to
+	 * Return:			@return the number of positions below each column
+	 */
+	public long[] perftDivide(int depth) {
+		return getPerft().divide(board, depth);
+	}
+
+	/**
+	 * Method getPerft
+	 * Purpose:			Used to create the performance test the first time it is needed, so its table
+	 * 					of counts only uses memory once a count is asked for.
+	 * Postcondition:	Returns the performance test, using the current threads of the engine.
+	 * Return:			@return the performance test
+	 */
+	private Perft getPerft() {
+		stopPondering();
+		if (perft == null)
+			this.perft = new Perft(64);
+		perft.setThreads(threads, workers);
+		return perft;
 	}
 }
\ No newline at end of file
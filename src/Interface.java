@@ -1,5 +1,15 @@
-import java.util.Scanner;
-import java.util.regex.Matcher;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 
 /**
@@ -7,64 +17,179 @@ import java.util.regex.Pattern;
  * Purpose:			Driver class to act as an interface between the engine and the coordinator.
  * 					It reads commands from the coordinator and sends them to the engine. The interface
  * 					parses the inputs received before sending them to the engine.
+ * 					The first word of each line is the command and must match exactly, so a word used as
+ * 					a value of one command is never taken for another command, and a line that only
+ * 					contains the name of a command somewhere else is ignored. A position line not given
+ * 					from startpos still takes its last word as the opponent's column, as it always has,
+ * 					whatever words come before it. The replies are buffered
+ * 					and sent together once the command has been carried out, so each command costs at
+ * 					most one write. The info lines of a search are sent as soon as each one is made, so
+ * 					the coordinator sees them while the search runs.
  * Student Name:	Sean Crocker
  * Student Number:	3307768
  */
-public class Interface {	
-	
+public class Interface {
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");	//The space between the words of a line
+	private static final Pattern NUMBER = Pattern.compile("[0-9]{1,18}");	//A whole number that fits in a long
+
 	/**
 	 * Method main
 	 * Purpose:			Main method that runs when the program begins.
 	 * Precondition:	The coordinator.jar file must initiate the program.
 	 * Postcondition:	Runs the method read to read the inputs from the coordinator.
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		Interface main = new Interface();
-		main.read();
+		main.read(new FileInputStream(FileDescriptor.in), new FileOutputStream(FileDescriptor.out), new Engine());
 	}
-	
+
 	/**
 	 * Method read
-	 * Purpose:			Used to create an engine and read commands received from the coordinator.
+	 * Purpose:			Used to read commands received from the coordinator and pass them to an engine.
 	 * 					Each command responds with a reply from the engine. Each line is read until the
-	 * 					quit command is received.
+	 * 					quit command is received or the input ends.
 	 * Postcondition:	The program stops when the quit command is received.
+	 * Parameters:		@param in the commands from the coordinator
+	 * 					@param stream the replies to the coordinator
+	 * 					@param engine the engine playing the game
 	 */
-	private void read() {
-		Engine engine = new Engine();
-		Scanner scanner = new Scanner(System.in);
+	public void read(InputStream in, OutputStream stream, Engine engine) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.US_ASCII)));
+		engine.setInfo(info -> {
+			out.println(info);
+			out.flush();
+		});
 		String line;
-		while ((line = scanner.nextLine()) != null) {
-			if (line.contains("name"))						//Send name to coordinator
-				System.out.println(engine.getName());
-			else if (line.contains("isready"))				//Reply to coordinator when ready
-				System.out.println("readyok");
-			//Update the connect 4 game with the opponent's move.
-			else if (line.contains("position")) {
-				String move = line.substring(line.length() - 1);
-				Pattern pattern = Pattern.compile("[0-6]$");
-				Matcher matcher = pattern.matcher(move);
-				if (matcher.find()) 
-					engine.updateBoard(Integer.parseInt(move), - 1);
+		while ((line = reader.readLine()) != null) {
+			String[] tokens = WHITESPACE.split(line.trim());
+			String command = tokens[0];
+			//Change a setting of the engine, given as "setoption <name> <value>"
+			if (command.equals("setoption")) {
+				if (tokens.length == 3)
+					engine.setOption(tokens[1], tokens[2]);
+			}
+			else if (command.equals("newgame"))				//Start a new game from an empty board
+				engine.newGame();
+			else if (command.equals("name"))					//Send name to coordinator
+				out.println(engine.getName());
+			else if (command.equals("isready"))				//Reply to coordinator when ready
+				out.println("readyok");
+			//Update the connect 4 game with the opponent's move, given as "position <column>", or set
+			//the whole game as "position startpos moves <columns>", every column played from an empty
+			//board with the engine to move after the last one. Only the moves the engine does not
+			//know yet are played. Any other line ending in a column takes the last word as the
+			//opponent's move, as the first version of the interface did.
+			else if (command.equals("position")) {
+				if (tokens.length >= 2 && tokens[1].equals("startpos")
+						&& (tokens.length == 2 || tokens[2].equals("moves"))) {
+					int[] moves = new int[Math.max(0, tokens.length - 3)];
+					boolean valid = true;
+					for (int i = 0; i < moves.length && valid; i++) {
+						valid = isColumn(tokens[i + 3]);
+						moves[i] = valid ? Integer.parseInt(tokens[i + 3]) : 0;
+					}
+					if (valid)
+						engine.setPosition(moves);
+				}
+				else if (isColumn(tokens[tokens.length - 1]))
+					engine.updateBoard(Integer.parseInt(tokens[tokens.length - 1]), -1);
 			}
 			//Reply with the best move the engine can make and the value of the evaluation function
-			//after that move.
-			else if (line.contains("go")) 
-				System.out.println("bestmove "+engine.bestMove()+" "+engine.getScore());
-			//Tells the engine to count how many nodes are in the game tree up to the depth given from the
-			//current position.
-			else if (line.contains("perft")) {
-				String depth = line.substring(line.length() - 2);
-				Pattern pattern = Pattern.compile("[^0-9]+([0-9]+)$");
-				Matcher matcher = pattern.matcher(depth);
-				if (matcher.find()) 
-					System.out.println(engine.perftStart(Integer.parseInt(matcher.group(1))));						
+			//after that move, or the proven result such as "win 5" once the game is solved, followed
+			//by the principal variation as "pv <moves>". An info
+			//line is sent before it after each iteration of the search. The search
+			//time is given as "go movetime <ms>" or as the time left on the engine's clock with
+			//"go time <ms> inc <ms>". Without either a fixed depth is searched.
+			else if (command.equals("go")) {
+				long moveTime = 0, time = 0, increment = 0;
+				for (int i = 1; i < tokens.length - 1; i++) {
+					if (!NUMBER.matcher(tokens[i + 1]).matches())
+						continue;
+					if (tokens[i].equals("movetime"))
+						moveTime = Long.parseLong(tokens[i + 1]);
+					else if (tokens[i].equals("time"))
+						time = Long.parseLong(tokens[i + 1]);
+					else if (tokens[i].equals("inc"))
+						increment = Long.parseLong(tokens[i + 1]);
+				}
+				if (moveTime == 0 && time > 0)
+					moveTime = engine.timeForMove(time, increment);
+				StringBuilder reply = new StringBuilder("bestmove ");
+				reply.append(engine.bestMove(moveTime)).append(' ').append(engine.getResult()).append(" pv");
+				for (int move : engine.getBestLine())
+					reply.append(' ').append(move);
+				out.println(reply);
+			}
+			//Reply with the best few moves of the current position without playing any of them,
+			//given as "analyse multipv <lines> movetime <ms>", one line for each move from the best:
+			//"multipv <n> depth <d> score <s> pv <moves>", followed by "analysisdone <nodes>" with the
+			//size of the analysis tree. Analysing the same position again deepens the same tree. Only
+			//a position with the engine to move is analysed, so after "go" the opponent's move must be
+			//given first; until then the reply is "analysisdone 1" with no lines.
+			else if (command.equals("analyse")) {
+				int lines = 1;
+				long moveTime = 0;
+				for (int i = 1; i < tokens.length - 1; i++) {
+					if (!NUMBER.matcher(tokens[i + 1]).matches())
+						continue;
+					if (tokens[i].equals("multipv") && tokens[i + 1].length() <= 9)
+						lines = Integer.parseInt(tokens[i + 1]);
+					else if (tokens[i].equals("movetime"))
+						moveTime = Long.parseLong(tokens[i + 1]);
+				}
+				AnalysisTree tree = engine.analyse(lines, moveTime);
+				int[] ranked = tree.getRankedChildren(AnalysisTree.ROOT);
+				for (int i = 0; i < Math.min(lines, ranked.length); i++) {
+					StringBuilder reply = new StringBuilder("multipv ");
+					reply.append(i + 1).append(" depth ").append(tree.getDepth(ranked[i])).append(" score ")
+							.append(tree.getScore(ranked[i])).append(" pv");
+					for (int move : tree.getLine(ranked[i]))
+						reply.append(' ').append(move);
+					out.println(reply);
+				}
+				out.println("analysisdone " + tree.getSize());
+			}
+			//Tells the engine to count how many positions are at the depth given from the current
+			//position, given as "perft <depth>". With "perft divide <depth>" the count below each
+			//column is printed before the total.
+			else if (command.equals("perft")) {
+				String last = tokens[tokens.length - 1];
+				if (tokens.length < 2 || !NUMBER.matcher(last).matches() || last.length() > 9)
+					continue;
+				int depth = Integer.parseInt(last);
+				if (tokens.length > 2 && tokens[1].equals("divide")) {
+					long total = 0;
+					long[] counts = engine.perftDivide(depth);
+					for (int i = 0; i < counts.length; i++) {
+						if (counts[i] >= 0) {
+							out.println(i+": "+counts[i]);
+							total += counts[i];
+						}
+					}
+					out.println(total);
+				}
+				else
+					out.println(engine.perftStart(depth));
 			}
-			else if (line.contains("quit"))					//Tells the engine to exit
-				System.out.println("quitting");
-			else
-				continue;
+			else if (command.equals("quit")) {				//Tells the engine to exit
+				out.println("quitting");
+				out.flush();
+				break;
+			}
+			out.flush();									//Send the replies to the command, if any
 		}
-		scanner.close();
+		out.flush();
+		reader.close();
+	}
+
+	/**
+	 * Method isColumn
+	 * Purpose:			Used to check that a word of a command is a column of the board.
+	 * Parameters:		@param token the word
+	 * Return:			@return true if the word is a single digit of a column
+	 */
+	private static boolean isColumn(String token) {
+		return token.length() == 1 && token.charAt(0) >= '0' && token.charAt(0) < '0' + Board.WIDTH;
 	}
-}
\ No newline at end of file
+}
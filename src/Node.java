@@ -57,6 +57,18 @@ public class Node {
 	 * Return:			@return the evaluation heuristic
 	 */
 	public int evaluationFunction() {
+		return evaluate(state);
+	}
+
+	/**
+	 * Method evaluate
+	 * Purpose:			Used to apply the evaluation function to a board that is not stored in a node,
+	 * 					such as the single board a search updates and undoes moves on.
+	 * Postcondition:	The evaluation heuristic of the board is returned.
+	 * Parameters:		@param state the board being evaluated
+	 * Return:			@return the evaluation heuristic
+	 */
+	public static int evaluate(Board state) {
 		int playerOneScore = 0;
 		int playerTwoScore = 0;
 		if (state.hasWon(1) || state.hasWon(-1)) {
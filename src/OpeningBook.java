@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class:			OpeningBook
+ * Purpose:			Used to look up the best move of the positions at the start of a game without
+ * 					searching them. The book is a binary file made by BookBuilder that holds:
+ * 						bytes  0-3	=	MAGIC, marking the file as a book;
+ * 						bytes  4-7	=	The amount of plies from the start of the game the book covers;
+ * 						bytes  8-11	=	The amount of entries;
+ * 						bytes 12-	=	The entries, sorted by key, 12 bytes each: the key of the position
+ * 										(8 bytes) followed by its score shifted left by 8 bits and
+ * 										combined with the best move (4 bytes).
+ * 					The key is the canonical key of the board with the engine to move, which a position
+ * 					only shares with its mirror image, and the best move is stored for the position
+ * 					the key belongs to. A position found through the key of its mirror is given the
+ * 					mirrored move, so the book holds close to half as many entries. Its score is that
+ * 					of the mirror, which the evaluation function may score a little differently from the
+ * 					position itself. The file is mapped into memory read only the first time it is needed
+ * 					instead of being read onto the heap, so opening it costs nothing, and every engine on
+ * 					the same computer shares the one copy the operating system keeps.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class OpeningBook {
+	public static final int MAGIC = 0x4334424B;	//The bytes "C4BK" at the start of every book
+	public static final int NOT_FOUND = -1;		//Returned when a position is not in the book
+	public static final int HEADER_BYTES = 12;	//The size of the header before the entries
+	public static final int ENTRY_BYTES = 12;	//The size of each entry
+
+	private Path path;				//The file the book is read from
+	private MappedByteBuffer entries;	//The mapped file, or null before it is loaded
+	private int plies;				//The amount of plies the book covers
+	private int size;				//The amount of entries in the book
+	private volatile boolean loaded;	//True once loading the file has been tried
+
+	/**
+	 * Constructor with a parameter to initialize all global variables. The file is not opened
+	 * until the book is first probed.
+	 * Parameters:		@param path the file the book is read from
+	 */
+	public OpeningBook(Path path) {
+		this.path = path;
+		this.entries = null;
+		this.plies = 0;
+		this.size = 0;
+		this.loaded = false;
+	}
+
+	/**
+	 * Method probe
+	 * Purpose:			Used to look up the position of a board in the book with a binary search.
+	 * Precondition:	The engine must be the side to move, as player 1 on the board.
+	 * Postcondition:	Returns the packed entry of the position, or NOT_FOUND if the book is missing,
+	 * 					does not cover this many plies, or does not hold the position.
+	 * Parameters:		@param board the position looked up
+	 * Return:			@return the packed entry or NOT_FOUND
+	 */
+	public int probe(Board board) {
+		if (!loaded)
+			load();
+		if (entries == null || board.getMoveCount() >= plies)
+			return NOT_FOUND;
+		long key = board.getCanonicalKey();
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int offset = HEADER_BYTES + middle * ENTRY_BYTES;
+			long found = entries.getLong(offset);
+			if (found < key)
+				low = middle + 1;
+			else if (found > key)
+				high = middle - 1;
+			else if (key == board.getKey())
+				return entries.getInt(offset + 8);
+			else
+				return mirror(entries.getInt(offset + 8));
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Method load
+	 * Purpose:			Used to map the file of the book into memory. A missing or damaged file leaves
+	 * 					the book empty so the engine searches every move instead.
+	 * Postcondition:	The entries are mapped if the file is a valid book.
+	 */
+	private synchronized void load() {
+		if (!loaded && Files.isRegularFile(path))
+			map();
+		this.loaded = true;
+	}
+
+	/**
+	 * Method map
+	 * Purpose:			Used to check the header of the file and map its entries.
+	 * Postcondition:	The entries, plies and size are set if the file is a valid book.
+	 */
+	private void map() {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_BYTES || length > Integer.MAX_VALUE)
+				return;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			int count = buffer.getInt(8);
+			if (buffer.getInt(0) != MAGIC || count < 0 || HEADER_BYTES + (long) count * ENTRY_BYTES != length)
+				return;
+			this.plies = buffer.getInt(4);
+			this.size = count;
+			this.entries = buffer;
+		}
+		catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Method entry
+	 * Purpose:			Used to pack a best move and its score into an entry of the book.
+	 * Parameters:		@param move the best move
+	 * 					@param score the score of the position for the engine
+	 * Return:			@return the packed entry
+	 */
+	public static int entry(int move, int score) {
+		return (score << 8) | move;
+	}
+
+	/**
+	 * Method move
+	 * Purpose:			Used to return the best move held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the best move
+	 */
+	public static int move(int entry) {
+		return entry & 0xFF;
+	}
+
+	/**
+	 * Method score
+	 * Purpose:			Used to return the score held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the score of the position for the engine
+	 */
+	public static int score(int entry) {
+		return entry >> 8;
+	}
+
+	/**
+	 * Method mirror
+	 * Purpose:			Used to mirror the best move held in a packed entry, for the mirror image of the
+	 * 					position it was stored for.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the packed entry with the mirrored move
+	 */
+	public static int mirror(int entry) {
+		return entry(Board.WIDTH - 1 - move(entry), score(entry));
+	}
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Class:			Perft
+ * Purpose:			A performance test that counts the positions at the end of every line of play up to a
+ * 					given depth, straight from the board without building a game tree. A finished game
+ * 					ends its line early and counts as one position, just as it does in the game tree.
+ * 					The counts of positions already counted are kept in a table so that a position
+ * 					reached through a different order of moves is not counted again. Each slot holds a
+ * 					key made from the position, side to move and depth, combined with the count by exclusive or so
+ * 					the table can be shared by threads without locks. With more than one thread, the
+ * 					root moves are counted at the same time on their own boards.
+ * 					A position and its mirror image have the same counts, so the table is keyed by the
+ * 					canonical key of the position, and in a position that is the same as its mirror only
+ * 					the moves up to the center column are counted, with the count below each move left
+ * 					of the center standing for its mirrored move as well.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Perft {
+	private static final int ENTRY_BYTES = 16;		//The memory used by each slot
+	private static final int MIN_STORED_DEPTH = 3;	//Smaller counts are quicker to count than to look up
+
+	private long[] keys;		//The key of each slot, combined with its count
+	private long[] counts;		//The count stored in each slot
+	private int mask;			//Used to map a key onto a slot
+	private int threads;		//The amount of threads used for counting
+	private ExecutorService workers;	//The threads that count root moves
+
+	/**
+	 * Constructor with a parameter to initialize all global variables.
+	 * Parameters:		@param megabytes the memory the table of counts may use
+	 */
+	public Perft(int megabytes) {
+		long slots = Math.max(1, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+		int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+		this.keys = new long[size];
+		this.counts = new long[size];
+		this.mask = size - 1;
+		this.threads = 1;
+		this.workers = null;
+	}
+
+	/**
+	 * Method setThreads
+	 * Purpose:			Used to change the amount of threads that count the root moves.
+	 * Parameters:		@param threads the amount of threads used, including the calling thread
+	 * 					@param workers the threads the other root moves are counted on
+	 */
+	public void setThreads(int threads, ExecutorService workers) {
+		this.threads = Math.max(1, threads);
+		this.workers = workers;
+	}
+
+	/**
+	 * Method clear
+	 * Purpose:			Used to remove every count from the table.
+	 * Postcondition:	Every slot in the table is empty.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(counts, 0);
+	}
+
+	/**
+	 * Method count
+	 * Purpose:			Used to count the positions at the given depth from a board.
+	 * Postcondition:	Returns the number of positions, or zero if the depth is not positive or the game
+	 * 					has already finished.
+	 * Parameters:		@param board the position counted from
+	 * 					@param depth the depth the count is expanded to
+	 * Return:			@return the number of positions
+	 */
+	public long count(Board board, int depth) {
+		long total = 0;
+		for (long count : divide(board, depth))
+			total += Math.max(0, count);
+		return total;
+	}
+
+	/**
+	 * Method divide
+	 * Purpose:			Used to count the positions at the given depth below each root move, so that the
+	 * 					counts of two move generators can be compared move by move.
+	 * Postcondition:	Returns the number of positions below each column, with -1 for a column that
+	 * 					cannot be played. Every count is -1 if the depth is not positive or the game has
+	 * 					already finished.
+	 * Parameters:		@param board the position counted from
+	 * 					@param depth the depth the count is expanded to
+	 * Return:			@return the number of positions below each column
+	 */
+	public long[] divide(Board board, int depth) {
+		long[] result = new long[Board.WIDTH];
+		Arrays.fill(result, -1);
+		if (depth <= 0 || board.hasFinished())
+			return result;
+		int turn = 1;
+		int last = board.isSymmetric() ? Board.WIDTH / 2 : Board.WIDTH - 1;
+		ArrayList<Future<Long>> results = new ArrayList<Future<Long>>();
+		for (int i = 0; i <= last; i++) {
+			if (board.isIllegal(i))
+				continue;
+			Board child = new Board(board);
+			child.update(i, turn);
+			if (threads > 1 && workers != null)
+				results.add(workers.submit(() -> perft(child, depth - 1, -turn)));
+			else
+				result[i] = perft(child, depth - 1, -turn);
+		}
+		int index = 0;
+		for (int i = 0; i <= last && !results.isEmpty(); i++) {
+			if (board.isIllegal(i))
+				continue;
+			try {
+				result[i] = results.get(index++).get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		for (int i = last + 1; i < Board.WIDTH; i++)		//Mirrored moves of a symmetric position
+			result[i] = result[Board.WIDTH - 1 - i];
+		return result;
+	}
+
+	/**
+	 * Method perft
+	 * Purpose:			Used to count the positions below a position with recursion. One move from the
+	 * 					end, the count is the number of legal moves, so the last ply is never made.
+	 * Postcondition:	Returns the number of positions at the given depth. The board is left as it was.
+	 * Parameters:		@param board the position counted from
+	 * 					@param depth the remaining depth
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * Return:			@return the number of positions
+	 */
+	private long perft(Board board, int depth, int turn) {
+		if (depth == 0 || board.hasFinished())
+			return 1;
+		if (depth == 1) {
+			int moves = 0;
+			for (int i = 0; i < Board.WIDTH; i++) {
+				if (!board.isIllegal(i))
+					moves++;
+			}
+			return moves;
+		}
+		long key = board.getCanonicalKey() | (long) depth << 56 | (turn == 1 ? 0 : 1L << 55);
+		int index = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		if (depth >= MIN_STORED_DEPTH) {
+			long count = counts[index];
+			if ((keys[index] ^ count) == key)
+				return count;
+		}
+		long count = 0;
+		boolean symmetric = board.isSymmetric();
+		for (int i = 0; i < Board.WIDTH; i++) {
+			if (board.isIllegal(i) || (symmetric && i > Board.WIDTH / 2))
+				continue;
+			board.update(i, turn);
+			long below = perft(board, depth - 1, -turn);
+			count += symmetric && i < Board.WIDTH / 2 ? 2 * below : below;
+			board.undo(i);
+		}
+		if (depth >= MIN_STORED_DEPTH) {
+			keys[index] = key ^ count;
+			counts[index] = count;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,134 @@
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Class:			Ponder
+ * Purpose:			Used to search on the opponent's time. After the engine has moved, the position
+ * 					after the reply the search expects is searched on a background thread until the
+ * 					opponent moves. Without an expected reply, every reply is searched one depth at a
+ * 					time. The searches share the engine's transposition table, so when the opponent's
+ * 					move arrives the positions searched while pondering do not need to be searched again.
+ * 					They are set up as the engine's own searches are, with its threads and pruning, and
+ * 					go no deeper than the engine's next search would.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Ponder implements Runnable {
+	private Board board;		//The position after the engine's move, with the opponent to move
+	private TranspositionTable table;	//The results of searched positions, shared with the engine
+	private int expected;		//The reply that is searched, or -1 for every reply
+	private int maxDepth;		//The deepest iteration searched after a reply
+	private boolean threats;	//True if the searches prune moves by the threats on the board
+	private int threads;		//The amount of threads used by each search
+	private ExecutorService workers;	//The threads that help the searches, or null for one thread
+	private Search search;		//The search that is running, or null between searches
+	private boolean stopped;	//True once pondering has been told to stop
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param board the position after the engine's move. It is copied so the game is
+	 * 					not changed.
+	 * 					@param table the transposition table shared with the engine
+	 * 					@param expected the reply that is searched, or -1 for every reply
+	 * 					@param maxDepth the deepest iteration searched after a reply
+	 * 					@param threats true to prune moves by the threats on the board
+	 * 					@param threads the amount of threads each search uses
+	 * 					@param workers the threads that help the searches, or null for one thread
+	 */
+	public Ponder(Board board, TranspositionTable table, int expected, int maxDepth, boolean threats, int threads,
+			ExecutorService workers) {
+		this.board = new Board(board);
+		this.table = table;
+		this.expected = expected;
+		this.maxDepth = maxDepth;
+		this.threats = threats;
+		this.threads = threads;
+		this.workers = workers;
+		this.search = null;
+		this.stopped = false;
+	}
+
+	/**
+	 * Method run
+	 * Purpose:			Used to search until pondering is stopped or every reply has been searched to
+	 * 					the deepest iteration, or to the end of the game if that comes first.
+	 * Postcondition:	The transposition table holds the results of the searches.
+	 */
+	public void run() {
+		if (expected >= 0) {
+			search(expected, maxDepth);
+			return;
+		}
+		int emptyCells = Board.WIDTH * Board.HEIGHT - board.getMoveCount();
+		for (int depth = 1; depth < emptyCells && depth <= maxDepth; depth++) {
+			for (int i = 0; i < Board.WIDTH; i++) {
+				if (!board.isIllegal(i) && !search(i, depth))
+					return;
+			}
+		}
+	}
+
+	/**
+	 * Method search
+	 * Purpose:			Used to search the position after a reply to the given depth.
+	 * Postcondition:	Returns false if pondering was stopped before the search finished.
+	 * Parameters:		@param reply the opponent's reply
+	 * 					@param depth the deepest iteration that is searched
+	 * Return:			@return true if the search finished
+	 */
+	private boolean search(int reply, int depth) {
+		Board child = new Board(board);
+		child.update(reply, -1);
+		if (child.hasFinished())
+			return true;
+		Search current = new Search(child, table);
+		current.setThreads(threads, workers);
+		current.setThreats(threats);
+		//A stop made just before the search starts is cleared by it, so it is checked after each iteration
+		current.setListener(statistics -> {
+			if (isStopped())
+				current.stop();
+		});
+		synchronized (this) {
+			if (stopped)
+				return false;
+			this.search = current;
+		}
+		current.bestMove(depth, 0);
+		synchronized (this) {
+			this.search = null;
+			return !stopped;
+		}
+	}
+
+	/**
+	 * Method stop
+	 * Purpose:			Used to stop pondering from another thread.
+	 * Postcondition:	The running search returns once its first iteration has finished, and no new
+	 * 					search is started. A search told to stop just before it started is stopped by its
+	 * 					listener after its first iteration.
+	 */
+	public synchronized void stop() {
+		this.stopped = true;
+		if (search != null)
+			search.stop();
+	}
+
+	/**
+	 * Method isStopped
+	 * Purpose:			Used to check from the pondering thread whether pondering has been told to stop.
+	 * Return:			@return true once pondering has been told to stop
+	 */
+	private synchronized boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Method isExpected
+	 * Purpose:			Used to check whether the opponent played the reply being searched.
+	 * Parameters:		@param reply the opponent's move
+	 * Return:			@return true if the reply is the one being searched
+	 */
+	public boolean isExpected(int reply) {
+		return reply == expected;
+	}
+}
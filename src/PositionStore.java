@@ -0,0 +1,452 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Class:			PositionStore
+ * Purpose:			Used to keep the results of positions that were solved or searched deeply on disk,
+ * 					so that later games and other engine processes do not need to search them again.
+ * 					The store is made of two files:
+ * 						<name>		=	The log, where every result is appended as a record of 16 bytes:
+ * 										the canonical key of the position (8 bytes), the packed result
+ * 										(4 bytes) and a CRC-32 checksum of both (4 bytes);
+ * 						<name>.idx	=	The index, a hash table mapped into memory that holds the key of
+ * 										each position and the place of its best record in the log. Its
+ * 										header holds MAGIC, the amount of slots, how much of the log has
+ * 										been indexed and the amount of slots used.
+ * 					A packed result holds:
+ * 						bits  0-3	=	The best move;
+ * 						bit   4		=	Set if the position was solved, so the score is exact;
+ * 						bits  8-15	=	The depth the position was searched to;
+ * 						bits 16-31	=	The score of the position for the side to move.
+ * 					The log is the only copy of the results and the index can always be built again
+ * 					from it. Writers take a lock on the log, so any amount of engine processes can share
+ * 					the store, and readers need no lock at all, as every record read through the index
+ * 					is checked against its key and checksum before it is used. A record that was only
+ * 					partly written when a process stopped fails its checksum and is cut off the end of
+ * 					the log by the next writer, which also indexes any records the index is missing.
+ * 					Results are written on a thread of the store, so the engine never waits for the
+ * 					disk. The index has a fixed amount of slots chosen when the store is created, as
+ * 					other processes keep it mapped. Once it is three quarters full, the results of new
+ * 					positions are not written to the log either, as nothing could find them, and a
+ * 					warning is printed the first time. Positions already stored can still be improved.
+ * 					A position and its mirror image share their record. A solved result is the same for
+ * 					both, and a searched result is the one of whichever was searched, which the
+ * 					evaluation function may score a little differently from the other.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class PositionStore {
+	public static final int NOT_FOUND = -1;		//Returned when a position is not in the store
+	public static final int MIN_DEPTH = 12;		//The shallowest search worth keeping
+	private static final int MAGIC = 0x43345053;	//The bytes "C4PS" at the start of every index
+	private static final int SLOTS = 1 << 20;	//The amount of slots of a new index
+	private static final int HEADER_BYTES = 32;	//The size of the header of the index
+	private static final int SLOT_BYTES = 16;	//The size of each slot of the index
+	private static final int RECORD_BYTES = 16;	//The size of each record of the log
+	private static final int SOLVED = 1 << 4;	//Set in the packed result of a solved position
+	//The store opened for each file, so the engines of one process share it
+	private static final HashMap<Path, PositionStore> OPEN = new HashMap<Path, PositionStore>();
+
+	private FileChannel log;		//The log of records
+	private FileChannel indexFile;	//The file of the index
+	private MappedByteBuffer index;	//The index mapped into memory
+	private int mask;				//Used to map a key onto a slot
+	private ExecutorService writer;	//The thread that results are written on
+	private CRC32 checksum;			//Used to work out the checksum of each record written
+	private boolean full;			//True once a new position was not kept as the index is full
+
+	/**
+	 * Constructor with a parameter to initialize all global variables. The files are created if they
+	 * do not exist, and the index is checked against the log.
+	 * Parameters:		@param path the file of the log
+	 */
+	public PositionStore(Path path) throws IOException {
+		this.log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.indexFile = FileChannel.open(Paths.get(path + ".idx"), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.index = null;
+		this.mask = 0;
+		this.writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "position-store");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.checksum = new CRC32();
+		this.full = false;
+		FileLock lock = log.lock();
+		try {
+			mapIndex();
+			catchUp();
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Method open
+	 * Purpose:			Used to open the store of a file once for the whole process, as a process may
+	 * 					only hold one lock on a file. The store is closed when the process exits, after the
+	 * 					results waiting to be written have been written.
+	 * Parameters:		@param path the file of the log
+	 * Return:			@return the store of the file
+	 */
+	public static synchronized PositionStore open(Path path) throws IOException {
+		Path key = path.toAbsolutePath().normalize();
+		PositionStore store = OPEN.get(key);
+		if (store == null) {
+			PositionStore opened = new PositionStore(key);
+			Runtime.getRuntime().addShutdownHook(new Thread(opened::close));
+			OPEN.put(key, opened);
+			store = opened;
+		}
+		return store;
+	}
+
+	/**
+	 * Method probe
+	 * Purpose:			Used to look up the result of a position without taking a lock. The position is
+	 * 					looked up by its canonical key, and a result stored for its mirror image is given
+	 * 					the mirrored move.
+	 * Precondition:	The side to move must be player 1 on the board.
+	 * Postcondition:	Returns the packed result of the position, or NOT_FOUND if it is not stored.
+	 * Parameters:		@param board the position looked up
+	 * Return:			@return the packed result or NOT_FOUND
+	 */
+	public int probe(Board board) {
+		long key = board.getCanonicalKey();
+		int result = find(key);
+		if (result == NOT_FOUND || key == board.getKey())
+			return result;
+		return (result & ~0xF) | (Board.WIDTH - 1 - move(result));
+	}
+
+	/**
+	 * Method add
+	 * Purpose:			Used to keep the result of a position. The result is written on the thread of
+	 * 					the store, and only replaces a stored result of the same position if it is solved
+	 * 					or searched deeper.
+	 * Precondition:	The side to move must be player 1 on the board.
+	 * Parameters:		@param board the position
+	 * 					@param move the best move
+	 * 					@param score the score of the position for the side to move
+	 * 					@param depth the depth the position was searched to
+	 * 					@param solved true if the score is exact
+	 */
+	public void add(Board board, int move, int score, int depth, boolean solved) {
+		long key = board.getCanonicalKey();
+		int column = key == board.getKey() ? move : Board.WIDTH - 1 - move;
+		int result = (score << 16) | (Math.min(depth, 0xFF) << 8) | (solved ? SOLVED : 0) | column;
+		try {
+			writer.execute(() -> write(key, result));
+		}
+		catch (RuntimeException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Method close
+	 * Purpose:			Used to write the results still waiting and close the files.
+	 * Postcondition:	No more results are written.
+	 */
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			try {
+				log.close();
+				indexFile.close();
+			}
+			catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Method write
+	 * Purpose:			Used to append a result to the log and index it while holding the lock of the
+	 * 					log. Records other processes appended since are indexed first.
+	 * Postcondition:	The result is stored unless a better result of the position is already stored,
+	 * 					the position is new and the index is full, or the disk failed.
+	 * Parameters:		@param key the canonical key of the position
+	 * 					@param result the packed result
+	 */
+	private synchronized void write(long key, int result) {
+		try {
+			FileLock lock = log.lock();
+			try {
+				catchUp();
+				int old = find(key);
+				if (old != NOT_FOUND && (isSolved(old) || !isSolved(result) && depth(old) >= depth(result)))
+					return;
+				if (!hasRoom(key)) {
+					if (!full)
+						System.err.println("Position store full: the results of new positions are not kept");
+					this.full = true;
+					return;
+				}
+				long offset = index.getLong(8);
+				ByteBuffer record = record(key, result);
+				while (record.hasRemaining())
+					log.write(record, offset + record.position());
+				log.force(false);
+				insert(key, offset);
+				index.putLong(8, offset + RECORD_BYTES);
+			}
+			finally {
+				lock.release();
+			}
+		}
+		catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Method isFull
+	 * Purpose:			Used to check whether a result was not kept because the index is full.
+	 * Return:			@return true once the result of a new position was left out
+	 */
+	public synchronized boolean isFull() {
+		return full;
+	}
+
+	/**
+	 * Method catchUp
+	 * Purpose:			Used to index the records of the log that the index does not cover yet. The first
+	 * 					record that is cut short or fails its checksum is where a write was torn, so the log
+	 * 					is cut off there.
+	 * Precondition:	The lock of the log must be held.
+	 * Postcondition:	Every record of the log is indexed and the log ends after its last valid record.
+	 */
+	private void catchUp() throws IOException {
+		long offset = index.getLong(8);
+		long size = log.size();
+		ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+		while (offset < size) {
+			record.clear();
+			if (!read(record, offset))
+				break;
+			insert(record.getLong(0), offset);
+			offset += RECORD_BYTES;
+		}
+		if (offset < size)
+			log.truncate(offset);
+		index.putLong(8, offset);
+	}
+
+	/**
+	 * Method mapIndex
+	 * Purpose:			Used to map the index into memory. An index that is missing, of the wrong size,
+	 * 					without MAGIC or covering more than the log holds is made again, empty, and filled
+	 * 					from the log by catchUp.
+	 * Precondition:	The lock of the log must be held.
+	 * Postcondition:	The index is mapped.
+	 */
+	private void mapIndex() throws IOException {
+		long length = indexFile.size();
+		MappedByteBuffer mapped = null;
+		if (length >= HEADER_BYTES) {
+			mapped = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			int slots = mapped.getInt(4);
+			if (mapped.getInt(0) != MAGIC || slots <= 0 || Integer.bitCount(slots) != 1
+					|| HEADER_BYTES + (long) slots * SLOT_BYTES != length || mapped.getLong(8) > log.size()
+					|| mapped.getLong(8) % RECORD_BYTES != 0)
+				mapped = null;
+		}
+		if (mapped == null) {
+			indexFile.truncate(0);
+			mapped = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) SLOTS * SLOT_BYTES);
+			mapped.putInt(4, SLOTS);
+			mapped.putLong(8, 0);
+			mapped.putLong(16, 0);
+			mapped.putInt(0, MAGIC);
+		}
+		this.index = mapped;
+		this.mask = mapped.getInt(4) - 1;
+	}
+
+	/**
+	 * Method find
+	 * Purpose:			Used to look up the result of a canonical key through the index and read its
+	 * 					record from the log.
+	 * Parameters:		@param key the canonical key of the position
+	 * Return:			@return the packed result, or NOT_FOUND if it is not stored or its record is not valid
+	 */
+	private int find(long key) {
+		int slot = slot(key);
+		try {
+			while (true) {
+				int position = HEADER_BYTES + slot * SLOT_BYTES;
+				long found = index.getLong(position);
+				if (found == 0)
+					return NOT_FOUND;
+				if (found == key) {
+					ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+					if (!read(record, index.getLong(position + 8)) || record.getLong(0) != key)
+						return NOT_FOUND;
+					return record.getInt(8);
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+		catch (IOException e) {
+			return NOT_FOUND;
+		}
+	}
+
+	/**
+	 * Method hasRoom
+	 * Purpose:			Used to check that a key can be indexed: it already has a slot, or the index is
+	 * 					less than three quarters full.
+	 * Precondition:	The lock of the log must be held.
+	 * Parameters:		@param key the canonical key of the position
+	 * Return:			@return true if insert would index the key
+	 */
+	private boolean hasRoom(long key) {
+		if (index.getLong(16) < (mask + 1) / 4 * 3)
+			return true;
+		int slot = slot(key);
+		while (true) {
+			long found = index.getLong(HEADER_BYTES + slot * SLOT_BYTES);
+			if (found == key)
+				return true;
+			if (found == 0)
+				return false;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Method insert
+	 * Purpose:			Used to point the slot of a key at a record of the log. The place of the record is
+	 * 					written before the key, so a reader never follows a new key to an old place.
+	 * Precondition:	The lock of the log must be held.
+	 * Postcondition:	The key is indexed, unless it is new and the index is three quarters full.
+	 * Parameters:		@param key the canonical key of the position
+	 * 					@param offset the place of the record in the log
+	 */
+	private void insert(long key, long offset) {
+		int slot = slot(key);
+		while (true) {
+			int position = HEADER_BYTES + slot * SLOT_BYTES;
+			long found = index.getLong(position);
+			if (found == key) {
+				index.putLong(position + 8, offset);
+				return;
+			}
+			if (found == 0) {
+				long used = index.getLong(16);
+				if (used >= (mask + 1) / 4 * 3)
+					return;
+				index.putLong(position + 8, offset);
+				index.putLong(position, key);
+				index.putLong(16, used + 1);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Method read
+	 * Purpose:			Used to read a record from the log and check its checksum.
+	 * Parameters:		@param record the buffer the record is read into
+	 * 					@param offset the place of the record in the log
+	 * Return:			@return true if the whole record was read and its checksum is right
+	 */
+	private boolean read(ByteBuffer record, long offset) throws IOException {
+		while (record.hasRemaining()) {
+			if (log.read(record, offset + record.position()) < 0)
+				return false;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), 0, 12);
+		return (int) crc.getValue() == record.getInt(12);
+	}
+
+	/**
+	 * Method record
+	 * Purpose:			Used to make the record of a result, with its checksum.
+	 * Parameters:		@param key the canonical key of the position
+	 * 					@param result the packed result
+	 * Return:			@return the record, ready to be written
+	 */
+	private ByteBuffer record(long key, int result) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+		record.putLong(0, key).putInt(8, result);
+		checksum.reset();
+		checksum.update(record.array(), 0, 12);
+		record.putInt(12, (int) checksum.getValue());
+		return record;
+	}
+
+	/**
+	 * Method slot
+	 * Purpose:			Used to find the first slot of the index a key is looked for in.
+	 * Parameters:		@param key the canonical key of the position
+	 * Return:			@return the slot
+	 */
+	private int slot(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+	/**
+	 * Method move
+	 * Purpose:			Used to return the best move held in a packed result.
+	 * Parameters:		@param result the packed result
+	 * Return:			@return the best move
+	 */
+	public static int move(int result) {
+		return result & 0xF;
+	}
+
+	/**
+	 * Method score
+	 * Purpose:			Used to return the score held in a packed result.
+	 * Parameters:		@param result the packed result
+	 * Return:			@return the score of the position for the side to move
+	 */
+	public static int score(int result) {
+		return result >> 16;
+	}
+
+	/**
+	 * Method depth
+	 * Purpose:			Used to return the depth held in a packed result.
+	 * Parameters:		@param result the packed result
+	 * Return:			@return the depth the position was searched to
+	 */
+	public static int depth(int result) {
+		return (result >>> 8) & 0xFF;
+	}
+
+	/**
+	 * Method isSolved
+	 * Purpose:			Used to check whether a packed result is exact.
+	 * Parameters:		@param result the packed result
+	 * Return:			@return true if the position was solved
+	 */
+	public static boolean isSolved(int result) {
+		return (result & SOLVED) != 0;
+	}
+}
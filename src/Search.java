@@ -0,0 +1,793 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Class:			Search
+ * Purpose:			Used to search for the best move directly on a single game board. Instead of building
+ * 					every node of a game tree before it is searched, the children of a position are made
+ * 					while the search runs by updating the board with a move and undoing it afterwards.
+ * 					Positions cut off by alpha beta pruning are therefore never created and the memory
+ * 					used stays the same no matter how deep the search goes.
+ * 					The search is run with iterative deepening: the position is searched to a depth of
+ * 					one, then two, and so on until the maximum depth is reached or the time given runs
+ * 					out. Each iteration tries the best line of the previous iteration first, and is
+ * 					searched with a window around the score of the previous iteration that is only
+ * 					widened when the score falls outside of it.
+ * 					Within an iteration the search is a principal variation search: the first move of
+ * 					each position is searched with the full window and every other move with a null
+ * 					window that only proves it is no better, which is cheaper than finding its value.
+ * 					A move that turns out to be better is searched again with the full window. The
+ * 					value and best move found are the same as a plain alpha beta search would find.
+ * 					With more than one thread, the moves at the root are shared between helper searches
+ * 					that each have their own board and share the transposition table. The first move is
+ * 					searched alone so the helpers start with a good bound, and the move picked is always
+ * 					the one a search on a single thread would pick.
+ * 					Unless it is turned off, the moves searched take the threats on the board into
+ * 					account: a win is played at once, a single threat of the other side is blocked, and
+ * 					moves that let the other side win next are not searched. A position lost to two
+ * 					threats is not searched at all but scored as the loss it leads to.
+ * 					A listener can be given a snapshot of the statistics of the search after each
+ * 					iteration, such as the positions searched each second and how often the moves
+ * 					searched first caused a cut off.
+ * 					Root moves can be left out of the search, so that the best moves of a position can
+ * 					be found one after another by leaving out the ones already found.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Search {
+	private static final int INFINITY = 1000000;	//A score larger than any evaluation
+	private static final int MAX_PLY = Board.WIDTH * Board.HEIGHT + 1;
+	private static final int CHECK_INTERVAL = 1023;	//The nodes searched between checks of the clock
+	private static final int[] CENTER_ORDER = {3, 2, 4, 1, 5, 0, 6};	//Columns from the center outwards
+	private static final int HISTORY_LIMIT = 1 << 24;	//The history score at which all scores are halved
+	private static final int ASPIRATION_WINDOW = 32;	//The distance of the root bounds from the last score
+	//The order scores of the moves tried before the history heuristic
+	private static final int FIRST_MOVE = Integer.MAX_VALUE;
+	private static final int HASH_MOVE = FIRST_MOVE - 1;
+	private static final int KILLER_MOVE = FIRST_MOVE - 2;
+
+	private Board board;		//The board the search updates and undoes moves on
+	private TranspositionTable table;	//The results of positions already searched
+	private int bestScore;		//The value of an evaluation function after each move
+	private int completedDepth;	//The depth of the last iteration that finished
+	private int[][] lines;		//The best line found below each ply of the current iteration
+	private int[] lineLengths;	//The ply the best line found below each ply ends at
+	private int[] bestLine;		//The best line of the last iteration that finished
+	private int bestLineLength;	//The amount of moves in the best line
+	private int[][] moves;		//The moves of each ply, in the order they are searched
+	private int[][] orderScores;	//The order score of each move of each ply
+	private int[][] killers;	//The last two moves of each ply that caused a cut off
+	private int[][] history;	//How often each cell caused a cut off, for each player
+	private long cutoffs;		//The amount of positions that were cut off
+	private long firstMoveCutoffs;	//The amount of cut offs caused by the first move searched
+	private long nodes;			//The amount of positions searched
+	private long evaluations;	//The amount of positions scored by the evaluation function
+	private long hashProbes;	//The amount of times the transposition table was looked in
+	private long hashHits;		//The amount of times the position was found in the table
+	private long elapsed;		//The time taken by the current search up to its last iteration
+	private Consumer<SearchStatistics> listener;	//Given the statistics after each iteration, or null
+	private long deadline;		//The time the search must stop at, or zero for no limit
+	private long nodeLimit;		//The positions searched at which the search must stop, or zero for no limit
+	private volatile boolean stopped;	//True once the search has been told to stop
+	private Search master;		//The search that started this one, or itself
+	private boolean threats;	//True if the moves searched are cut down by the threats on the board
+	private long excluded;		//The cells of the columns left out of the moves at the root
+	private int threads;		//The amount of threads that search the root moves
+	private ExecutorService workers;	//The threads that run the helper searches
+	private Search[] helpers;	//The searches run by the other threads
+	private int[] rootScores;	//The score of each root move of the current iteration
+	private boolean[] rootExact;	//True for each root move whose score is its value
+	private int[][] rootLines;	//The best line of each root move of the current iteration
+	private int[] rootLineLengths;	//The amount of moves in the best line of each root move
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param board the board being searched from. It is copied so the game is not changed.
+	 * 					@param table the transposition table shared with other searches
+	 */
+	public Search(Board board, TranspositionTable table) {
+		this.board = new Board(board);
+		this.table = table;
+		this.bestScore = 0;
+		this.completedDepth = 0;
+		this.lines = new int[MAX_PLY][MAX_PLY];
+		this.lineLengths = new int[MAX_PLY];
+		this.bestLine = new int[MAX_PLY];
+		this.bestLineLength = 0;
+		this.moves = new int[MAX_PLY][Board.WIDTH];
+		this.orderScores = new int[MAX_PLY][Board.WIDTH];
+		this.killers = new int[MAX_PLY][2];
+		for (int[] ply : killers)
+			Arrays.fill(ply, -1);
+		this.history = new int[2][Board.WIDTH * Board.HEIGHT];
+		this.cutoffs = 0;
+		this.firstMoveCutoffs = 0;
+		this.nodes = 0;
+		this.evaluations = 0;
+		this.hashProbes = 0;
+		this.hashHits = 0;
+		this.elapsed = 0;
+		this.listener = null;
+		this.deadline = 0;
+		this.nodeLimit = 0;
+		this.stopped = false;
+		this.master = this;
+		this.threats = true;
+		this.excluded = 0;
+		this.threads = 1;
+		this.workers = null;
+		this.helpers = new Search[0];
+		this.rootScores = new int[Board.WIDTH];
+		this.rootExact = new boolean[Board.WIDTH];
+		this.rootLines = new int[Board.WIDTH][MAX_PLY];
+		this.rootLineLengths = new int[Board.WIDTH];
+	}
+
+	/**
+	 * Method setThreads
+	 * Purpose:			Used to change the amount of threads that search the root moves.
+	 * Postcondition:	The next search shares the root moves between the given amount of threads. The
+	 * 					calling thread is one of them and the others are taken from the workers.
+	 * Parameters:		@param threads the amount of threads used
+	 * 					@param workers the threads the helper searches run on
+	 */
+	public void setThreads(int threads, ExecutorService workers) {
+		this.threads = Math.max(1, threads);
+		this.workers = workers;
+	}
+
+	/**
+	 * Method setThreats
+	 * Purpose:			Used to turn the pruning of moves by the threats on the board on or off.
+	 * Postcondition:	The next search, and its helper searches, search only the moves worth playing if
+	 * 					turned on, and every legal move otherwise.
+	 * Parameters:		@param threats true to prune moves by the threats on the board
+	 */
+	public void setThreats(boolean threats) {
+		this.threats = threats;
+		for (Search helper : helpers)
+			helper.threats = threats;
+	}
+
+	/**
+	 * Method exclude
+	 * Purpose:			Used to leave a move out of the moves searched at the root, so the best of the
+	 * 					other moves is found instead. While any move is left out, every other legal move at
+	 * 					the root is searched, as a move pruned by the threats still has a value to report,
+	 * 					and the result of the root is not stored in the transposition table, as it is not
+	 * 					the value of the position.
+	 * Precondition:	At least one legal move must be left to search.
+	 * Postcondition:	The next search does not search the move at the root.
+	 * Parameters:		@param move the column left out
+	 */
+	public void exclude(int move) {
+		this.excluded |= Board.columnCells(move);
+	}
+
+	/**
+	 * Method clearExcluded
+	 * Purpose:			Used to search every root move again after moves were left out.
+	 * Postcondition:	The next search searches every move at the root.
+	 */
+	public void clearExcluded() {
+		this.excluded = 0;
+	}
+
+	/**
+	 * Method setNodeLimit
+	 * Purpose:			Used to limit the search by the positions it searches instead of by time, so
+	 * 					the same position is always searched the same way however busy the computer is.
+	 * Postcondition:	The search stops once the amount of positions searched by the call to bestMove
+	 * 					passes the limit, and a new iteration is not started once
+	 * 					half of the limit has been used. The first iteration is always finished.
+	 * Parameters:		@param nodes the amount of positions, or zero for no limit
+	 */
+	public void setNodeLimit(long nodes) {
+		this.nodeLimit = Math.max(0, nodes);
+	}
+
+	/**
+	 * Method setListener
+	 * Purpose:			Used to be told how the search is going while it runs.
+	 * Postcondition:	The listener is given the statistics of the search after each iteration that
+	 * 					finishes, on the thread running the search.
+	 * Parameters:		@param listener the listener, or null for none
+	 */
+	public void setListener(Consumer<SearchStatistics> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Method setPosition
+	 * Purpose:			Used to move the search on to the next position of the same game, keeping what
+	 * 					was learned on the last move. If the game went the way the best line expected,
+	 * 					the line is shifted by the two moves played so the next search tries the rest of
+	 * 					it first. The killer moves are shifted the same way, as a ply of the old search
+	 * 					is two plies nearer the root now, and the history scores are cut to a sixteenth
+	 * 					so they only break ties until the new position has cut offs of its own. The helper
+	 * 					searches are moved on as well.
+	 * Precondition:	The position must come from the last one searched, with the player to move.
+	 * Postcondition:	The next call to bestMove searches the new position, with no root move left out.
+	 * Parameters:		@param position the board of the new position. It is copied so the game is not
+	 * 					changed.
+	 */
+	public void setPosition(Board position) {
+		Board expected = new Board(board);
+		if (bestLineLength > 2) {
+			expected.update(bestLine[0], 1);
+			expected.update(bestLine[1], -1);
+		}
+		//A helper shares the best line of the search that started it, which shifts it once
+		if (master == this && bestLineLength > 2 && expected.getKey() == position.getKey()) {
+			System.arraycopy(bestLine, 2, bestLine, 0, bestLineLength - 2);
+			this.bestLineLength -= 2;
+		}
+		else
+			this.bestLineLength = 0;
+		this.board = new Board(position);
+		for (int ply = 0; ply < MAX_PLY; ply++) {
+			killers[ply][0] = ply + 2 < MAX_PLY ? killers[ply + 2][0] : -1;
+			killers[ply][1] = ply + 2 < MAX_PLY ? killers[ply + 2][1] : -1;
+		}
+		for (int[] side : history) {
+			for (int i = 0; i < side.length; i++)
+				side[i] >>= 4;
+		}
+		this.excluded = 0;
+		for (Search helper : helpers)
+			helper.setPosition(position);
+	}
+
+	/**
+	 * Method bestMove
+	 * Purpose:			Used to retrieve the column number that the next marker should be placed in.
+	 * 					The position is searched with iterative deepening until the maximum depth is
+	 * 					reached, every empty cell has been searched, or the time given or the node limit
+	 * 					runs out. A new iteration is not started once half of the time or nodes has been
+	 * 					used, as it would take longer than all of the iterations before it. The first
+	 * 					iteration starts with the best line kept from the previous move, if there is one.
+	 * 					Each call starts with its statistics at zero and is not stopped by a stop that came
+	 * 					before it, so the same search can be run again, such as once for each line found
+	 * 					while analysing.
+	 * Postcondition:	Returns the best move of the last iteration that finished. Also sets the value
+	 * 					of the evaluation heuristic and the best line.
+	 * Parameters:		@param maxDepth the deepest iteration that is searched
+	 * 					@param milliseconds the time the search may use, or zero for no limit
+	 * Return:			@return the best move
+	 */
+	public int bestMove(int maxDepth, long milliseconds) {
+		long start = System.nanoTime();
+		this.elapsed = 0;
+		this.deadline = milliseconds > 0 ? start + milliseconds * 1000000 : 0;
+		this.completedDepth = 0;
+		this.stopped = false;
+		int emptyCells = Board.WIDTH * Board.HEIGHT - board.getMoveCount();
+		int column = 0;
+		if (helpers.length != threads - 1) {
+			this.helpers = new Search[threads - 1];
+			for (int i = 0; i < helpers.length; i++) {
+				helpers[i] = new Search(board, table);
+				helpers[i].master = this;
+				helpers[i].threats = threats;
+			}
+		}
+		resetStatistics();
+		for (Search helper : helpers)
+			helper.resetStatistics();
+		for (int depth = 1; depth <= Math.min(maxDepth, emptyCells); depth++) {
+			int score;
+			if (threads > 1 && !board.hasFinished())
+				score = searchRoot(depth);
+			else
+				score = aspiration(depth);
+			if (isStopped())
+				break;
+			this.bestScore = score;
+			this.completedDepth = depth;
+			this.bestLineLength = lineLengths[0];
+			System.arraycopy(lines[0], 0, bestLine, 0, bestLineLength);
+			column = bestLine[0];
+			this.elapsed = System.nanoTime() - start;
+			if (listener != null)
+				listener.accept(getStatistics());
+			if (deadline != 0 && System.nanoTime() - start > (deadline - start) / 2)
+				break;
+			if (nodeLimit != 0 && getNodes() > nodeLimit / 2)
+				break;
+		}
+		return column;
+	}
+
+	/**
+	 * Method stop
+	 * Purpose:			Used to stop a search that is running, for example from another thread.
+	 * Postcondition:	The search returns the best move of the last iteration that finished. A stop
+	 * 					before the search starts has no effect, as each search starts again unstopped.
+	 */
+	public void stop() {
+		this.stopped = true;
+	}
+
+	/**
+	 * Method resetStatistics
+	 * Purpose:			Used to set the counters of the statistics back to zero before a search.
+	 * Postcondition:	No positions, evaluations, cut offs or probes of the table are counted.
+	 */
+	private void resetStatistics() {
+		this.nodes = 0;
+		this.cutoffs = 0;
+		this.firstMoveCutoffs = 0;
+		this.evaluations = 0;
+		this.hashProbes = 0;
+		this.hashHits = 0;
+	}
+
+	/**
+	 * Method aspiration
+	 * Purpose:			Used to search the root within a window around the score of the previous
+	 * 					iteration, as the score rarely changes much from one depth to the next and a narrow
+	 * 					window cuts off more positions. If the score falls outside of the window, the root
+	 * 					is searched again with that side of the window opened up. The first iteration is
+	 * 					searched with the full window.
+	 * Postcondition:	Returns the value of the root and sets the best line of the root.
+	 * Parameters:		@param depth the depth of the iteration
+	 * Return:			@return the value of the root for the player
+	 */
+	private int aspiration(int depth) {
+		if (completedDepth == 0)
+			return negamax(depth, 0, -INFINITY, INFINITY, 1, true);
+		int alpha = bestScore - ASPIRATION_WINDOW;
+		int beta = bestScore + ASPIRATION_WINDOW;
+		while (true) {
+			int score = negamax(depth, 0, alpha, beta, 1, true);
+			if (isStopped())
+				return 0;
+			if (score <= alpha)
+				alpha = -INFINITY;
+			else if (score >= beta)
+				beta = INFINITY;
+			else
+				return score;
+		}
+	}
+
+	/**
+	 * Method negamax
+	 * Purpose:			The minimax algorithm with alpha beta pruning written from the point of view of
+	 * 					the side to move. The value of a position for one side is the negative of its value
+	 * 					for the other, so the maximizer and the minimizer share the same code. Each child is
+	 * 					made on the board, searched and then undone before the next child is made.
+	 * 					The transposition table is checked before the children are searched. A stored
+	 * 					result is only used when it was searched to exactly the remaining depth, so the
+	 * 					value returned is always the value of a plain search to the requested depth.
+	 * 					The moves are searched in the order given by orderMoves. Every move after the first
+	 * 					is searched with a null window and searched again with the full window only if it
+	 * 					is better than the best move so far. When a move causes a cut off it becomes a
+	 * 					killer move of the ply and its history score is raised.
+	 * Postcondition:	Returns the value of the position for the side to move and sets the best line
+	 * 					below the given ply. The board is left as it was before the call.
+	 * Parameters:		@param depth the remaining depth of the search
+	 * 					@param ply the amount of moves made since the start of the search
+	 * 					@param alpha the best value that the side to move can guarantee
+	 * 					@param beta the best value that the other side can guarantee
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * 					@param onBestLine true if every move so far came from the previous best line
+	 * Return:			@return the value of the position for the side to move
+	 */
+	private int negamax(int depth, int ply, int alpha, int beta, int turn, boolean onBestLine) {
+		lineLengths[ply] = ply;
+		if ((++nodes & CHECK_INTERVAL) == 0 && (master.deadline != 0 && System.nanoTime() > master.deadline
+				|| master.nodeLimit != 0 && master.getNodes() > master.nodeLimit))
+			master.stopped = true;
+		if (isStopped())
+			return 0;
+		if (depth == 0 || board.hasFinished()) {
+			if (SearchStatistics.ENABLED)
+				evaluations++;
+			return turn * Node.evaluate(board);
+		}
+		long candidates = threats ? board.candidateCells(turn) : board.playableCells();
+		if (ply == 0 && (candidates == 0 || excluded != 0))	//The root always has a move to return
+			candidates = board.playableCells() & ~excluded;
+		else if (candidates == 0)
+			return lost(turn);
+		long hash = board.getHash(turn);
+		long entry = table.probe(hash);
+		if (SearchStatistics.ENABLED) {
+			hashProbes++;
+			if (entry != 0)
+				hashHits++;
+		}
+		int hashMove = entry != 0 ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+		if (ply > 0 && entry != 0 && TranspositionTable.depth(entry) == depth) {
+			int score = TranspositionTable.score(entry);
+			int bound = TranspositionTable.bound(entry);
+			if (bound == TranspositionTable.EXACT)
+				return score;
+			if (bound == TranspositionTable.LOWER)
+				alpha = Math.max(alpha, score);
+			else
+				beta = Math.min(beta, score);
+			if (alpha >= beta)
+				return score;
+		}
+		int firstMove = onBestLine && ply < bestLineLength ? bestLine[ply] : -1;
+		int count = orderMoves(ply, turn, firstMove, hashMove, candidates);
+		int alphaOriginal = alpha;
+		int value = -INFINITY;
+		int bestColumn = TranspositionTable.NO_MOVE;
+		for (int i = 0; i < count; i++) {
+			int move = moves[ply][i];
+			board.update(move, turn);
+			int score;
+			if (i == 0)
+				score = -negamax(depth - 1, ply + 1, -beta, -alpha, -turn, move == firstMove);
+			else {
+				score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, -turn, move == firstMove);
+				if (score > alpha && score < beta)				//Search a better move again
+					score = -negamax(depth - 1, ply + 1, -beta, -alpha, -turn, move == firstMove);
+			}
+			board.undo(move);
+			if (isStopped())
+				return 0;
+			if (score > value) {
+				value = score;
+				bestColumn = move;
+			}
+			if (score > alpha) {
+				alpha = score;
+				lines[ply][ply] = move;
+				System.arraycopy(lines[ply + 1], ply + 1, lines[ply], ply + 1, lineLengths[ply + 1] - ply - 1);
+				lineLengths[ply] = lineLengths[ply + 1];
+			}
+			if (alpha >= beta) {					//Cut off branch
+				cutOff(ply, turn, depth, move, i);
+				break;
+			}
+		}
+		int bound = TranspositionTable.EXACT;
+		if (value <= alphaOriginal)
+			bound = TranspositionTable.UPPER;
+		else if (value >= beta)
+			bound = TranspositionTable.LOWER;
+		if (ply > 0 || excluded == 0)
+			table.store(hash, value, depth, bound, bestColumn);
+		return value;
+	}
+
+	/**
+	 * Method searchRoot
+	 * Purpose:			Used to search the root with the helper searches. The first move is searched by
+	 * 					this thread alone. Then every thread takes the next root move that has not been
+	 * 					searched until none are left. Each move is searched with alpha just below the best
+	 * 					score found so far, so a move as good as the best is given its exact value and the
+	 * 					earliest of the best moves in the order can be picked, just as a single thread
+	 * 					would. There is no beta bound at the root so no move fails high.
+	 * Postcondition:	Returns the value of the root and sets the best line of the root.
+	 * Parameters:		@param depth the depth of the iteration
+	 * Return:			@return the value of the root for the player
+	 */
+	private int searchRoot(int depth) {
+		lineLengths[0] = 0;
+		nodes++;
+		long hash = board.getHash(1);
+		long entry = table.probe(hash);
+		int hashMove = entry != 0 ? TranspositionTable.move(entry) : TranspositionTable.NO_MOVE;
+		long candidates = threats ? board.candidateCells(1) : 0;
+		if (candidates == 0 || excluded != 0)
+			candidates = board.playableCells() & ~excluded;
+		int count = orderMoves(0, 1, bestLineLength > 0 ? bestLine[0] : -1, hashMove, candidates);
+		Arrays.fill(rootExact, false);
+		AtomicInteger next = new AtomicInteger(1);
+		AtomicInteger alpha = new AtomicInteger(-INFINITY);
+		searchRootMove(this, 0, depth, alpha);
+		ArrayList<Future<?>> results = new ArrayList<Future<?>>();
+		if (!isStopped()) {
+			for (Search helper : helpers) {
+				helper.bestLine = bestLine;
+				helper.bestLineLength = bestLineLength;
+				results.add(workers.submit(() -> helper.searchRootMoves(this, depth, next, alpha, count)));
+			}
+			searchRootMoves(this, depth, next, alpha, count);
+		}
+		for (Future<?> result : results) {
+			try {
+				result.get();
+			}
+			catch (InterruptedException e) {
+				stop();
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		if (isStopped())
+			return 0;
+		int best = 0;
+		for (int i = 1; i < count; i++) {
+			if (rootExact[i] && rootScores[i] > rootScores[best])
+				best = i;
+		}
+		lineLengths[0] = rootLineLengths[best];
+		System.arraycopy(rootLines[best], 0, lines[0], 0, lineLengths[0]);
+		if (excluded == 0)
+			table.store(hash, rootScores[best], depth, TranspositionTable.EXACT, lines[0][0]);
+		return rootScores[best];
+	}
+
+	/**
+	 * Method searchRootMoves
+	 * Purpose:			Used by each thread to search root moves until every root move has been taken.
+	 * Parameters:		@param root the search the root moves belong to
+	 * 					@param depth the depth of the iteration
+	 * 					@param next the index of the next root move to be taken
+	 * 					@param alpha the best score found at the root so far
+	 * 					@param count the amount of root moves
+	 */
+	private void searchRootMoves(Search root, int depth, AtomicInteger next, AtomicInteger alpha, int count) {
+		int index;
+		while ((index = next.getAndIncrement()) < count && !isStopped())
+			searchRootMove(root, index, depth, alpha);
+	}
+
+	/**
+	 * Method searchRootMove
+	 * Purpose:			Used to search one root move on this search's board and record its score and
+	 * 					best line with the root search.
+	 * Postcondition:	The score of the move is recorded. If it is at least the best score so far it
+	 * 					is exact, and the best score is raised.
+	 * Parameters:		@param root the search the root moves belong to
+	 * 					@param index the position of the move in the order of the root moves
+	 * 					@param depth the depth of the iteration
+	 * 					@param alpha the best score found at the root so far
+	 */
+	private void searchRootMove(Search root, int index, int depth, AtomicInteger alpha) {
+		int move = root.moves[0][index];
+		int bound = alpha.get() - 1;
+		board.update(move, 1);
+		int score = -negamax(depth - 1, 1, -INFINITY, -bound, -1, root.bestLineLength > 0 && move == root.bestLine[0]);
+		board.undo(move);
+		if (isStopped())
+			return;
+		root.rootScores[index] = score;
+		root.rootExact[index] = score > bound;
+		if (score > bound) {
+			root.rootLines[index][0] = move;
+			System.arraycopy(lines[1], 1, root.rootLines[index], 1, lineLengths[1] - 1);
+			root.rootLineLengths[index] = lineLengths[1];
+			alpha.accumulateAndGet(score, Math::max);
+		}
+	}
+
+	/**
+	 * Method lost
+	 * Purpose:			Used to score a position the side to move loses whatever it plays. A move is made
+	 * 					and the other side wins with its reply, and the board the game ends on is scored
+	 * 					by the evaluation function, as a search deep enough to see the loss would score it.
+	 * Precondition:	The side to move must have no candidate cells, so the other side can win after
+	 * 					any move.
+	 * Postcondition:	Returns the value of the loss. The board is left as it was.
+	 * Parameters:		@param turn 1 = player's turn. -1 = opponent's turn
+	 * Return:			@return the value of the position for the side to move
+	 */
+	private int lost(int turn) {
+		int move = -1;
+		for (int column : CENTER_ORDER) {
+			if (!board.isIllegal(column)) {
+				move = column;
+				break;
+			}
+		}
+		board.update(move, turn);
+		int reply = -1;
+		long wins = board.winningCells(-turn) & board.playableCells();
+		for (int column : CENTER_ORDER) {
+			if ((wins & Board.columnCells(column)) != 0) {
+				reply = column;
+				break;
+			}
+		}
+		if (reply >= 0)
+			board.update(reply, -turn);
+		if (SearchStatistics.ENABLED)
+			evaluations++;
+		int value = turn * Node.evaluate(board);
+		if (reply >= 0)
+			board.undo(reply);
+		board.undo(move);
+		return value;
+	}
+
+	/**
+	 * Method isStopped
+	 * Purpose:			Used to check whether the current iteration must be abandoned. The first iteration
+	 * 					is always finished so that there is a move to return.
+	 * Postcondition:	Returns true if the search was stopped after an iteration has finished.
+	 * Return:			@return true if the search must return at once
+	 */
+	private boolean isStopped() {
+		return master.stopped && master.completedDepth > 0;
+	}
+
+	/**
+	 * Method orderMoves
+	 * Purpose:			Used to fill in the legal moves of a ply in the order they are searched, so that
+	 * 					the moves most likely to cause a cut off are searched first. The order is:
+	 * 						1.	The next move of the previous iteration's best line;
+	 * 						2.	The best move stored in the transposition table;
+	 * 						3.	The killer moves of the ply;
+	 * 						4.	The other moves by their history score.
+	 * 					Moves with the same score are searched from the center column outwards, as the
+	 * 					center columns are part of the most sequences of four. History scores are not
+	 * 					used at the root, so which of two equally good root moves is picked does not
+	 * 					depend on the threads used. Only the moves whose cells are given are filled in.
+	 * Postcondition:	The moves of the ply are set and the amount of moves is returned.
+	 * Parameters:		@param ply the ply the moves are made at
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * 					@param firstMove the move from the previous best line, or -1 for none
+	 * 					@param hashMove the move from the transposition table, or NO_MOVE for none
+	 * 					@param candidates the cells of the moves searched
+	 * Return:			@return the amount of moves
+	 */
+	private int orderMoves(int ply, int turn, int firstMove, int hashMove, long candidates) {
+		int[] side = history[turn == 1 ? 0 : 1];
+		int count = 0;
+		for (int i = 0; i < Board.WIDTH; i++) {
+			int move = CENTER_ORDER[i];
+			if ((candidates & Board.columnCells(move)) == 0)
+				continue;
+			int score;
+			if (move == firstMove)
+				score = FIRST_MOVE;
+			else if (move == hashMove)
+				score = HASH_MOVE;
+			else if (move == killers[ply][0] || move == killers[ply][1])
+				score = KILLER_MOVE;
+			else if (ply > 0)
+				score = side[move * Board.HEIGHT + board.getHeight(move)];
+			else
+				score = 0;
+			int j = count++;
+			while (j > 0 && orderScores[ply][j - 1] < score) {		//Insert the move by its score
+				moves[ply][j] = moves[ply][j - 1];
+				orderScores[ply][j] = orderScores[ply][j - 1];
+				j--;
+			}
+			moves[ply][j] = move;
+			orderScores[ply][j] = score;
+		}
+		return count;
+	}
+
+	/**
+	 * Method cutOff
+	 * Purpose:			Used to record a move that caused a cut off. The move becomes the first killer
+	 * 					move of the ply and the history score of its cell is raised by the square of the
+	 * 					remaining depth, so cut offs near the root count for more. When a history score
+	 * 					grows too large every score of the player is halved.
+	 * Precondition:	The move must have been undone, so the height of its column is the cell it used.
+	 * Postcondition:	The killer moves, history scores and cut off counters are updated.
+	 * Parameters:		@param ply the ply the cut off happened at
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * 					@param depth the remaining depth of the search
+	 * 					@param move the move that caused the cut off
+	 * 					@param index the position of the move in the order it was searched
+	 */
+	private void cutOff(int ply, int turn, int depth, int move, int index) {
+		if (SearchStatistics.ENABLED) {
+			cutoffs++;
+			if (index == 0)
+				firstMoveCutoffs++;
+		}
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] side = history[turn == 1 ? 0 : 1];
+		int cell = move * Board.HEIGHT + board.getHeight(move);
+		side[cell] += depth * depth;
+		if (side[cell] > HISTORY_LIMIT) {
+			for (int i = 0; i < side.length; i++)
+				side[i] /= 2;
+		}
+	}
+
+	/**
+	 * Method getBestScore
+	 * Purpose:			Used to return the value of the evaluation heuristic after a move
+	 * Postcondition:	Return the current evaluation heuristic
+	 * Return:			@return the value from the evaluation function
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Method getBestLine
+	 * Purpose:			Used to return the best line of the last iteration that finished, the moves both
+	 * 					sides are expected to play from the position searched.
+	 * Postcondition:	Returns a copy of the best line.
+	 * Return:			@return the moves of the best line
+	 */
+	public int[] getBestLine() {
+		return Arrays.copyOf(bestLine, bestLineLength);
+	}
+
+	/**
+	 * Method getExpectedReply
+	 * Purpose:			Used to return the reply the search expects from the opponent after its best
+	 * 					move, which is the second move of the best line.
+	 * Postcondition:	Returns the expected reply, or -1 if the best line ends after one move.
+	 * Return:			@return the expected reply or -1
+	 */
+	public int getExpectedReply() {
+		return bestLineLength > 1 ? bestLine[1] : -1;
+	}
+
+	/**
+	 * Method getNodes
+	 * Purpose:			Used to return the amount of positions searched.
+	 * Postcondition:	Returns the amount of positions searched by the last call to bestMove.
+	 * Return:			@return the amount of positions searched
+	 */
+	public long getNodes() {
+		long total = nodes;
+		for (Search helper : helpers)
+			total += helper.nodes;
+		return total;
+	}
+
+	/**
+	 * Method getFirstMoveCutoffRate
+	 * Purpose:			Used to measure how well the moves are ordered. With perfect move ordering every
+	 * 					cut off is caused by the first move searched.
+	 * Postcondition:	Returns the share of cut offs caused by the first move searched.
+	 * Return:			@return the first move cut off rate between 0 and 1
+	 */
+	public double getFirstMoveCutoffRate() {
+		long total = cutoffs;
+		long first = firstMoveCutoffs;
+		for (Search helper : helpers) {
+			total += helper.cutoffs;
+			first += helper.firstMoveCutoffs;
+		}
+		return total == 0 ? 0 : (double) first / total;
+	}
+
+	/**
+	 * Method getStatistics
+	 * Purpose:			Used to take a snapshot of the statistics of the search, added up over the helper
+	 * 					searches. It can be called while the search runs from the listener.
+	 * Postcondition:	Returns the statistics up to the last iteration that finished.
+	 * Return:			@return the statistics of the search
+	 */
+	public SearchStatistics getStatistics() {
+		long totalEvaluations = evaluations, totalCutoffs = cutoffs, totalFirst = firstMoveCutoffs;
+		long totalProbes = hashProbes, totalHits = hashHits;
+		for (Search helper : helpers) {
+			totalEvaluations += helper.evaluations;
+			totalCutoffs += helper.cutoffs;
+			totalFirst += helper.firstMoveCutoffs;
+			totalProbes += helper.hashProbes;
+			totalHits += helper.hashHits;
+		}
+		return new SearchStatistics(completedDepth, bestScore, getNodes(), totalEvaluations, totalCutoffs, totalFirst,
+				totalProbes, totalHits, elapsed, Arrays.copyOf(bestLine, bestLineLength));
+	}
+
+	/**
+	 * Method getCompletedDepth
+	 * Purpose:			Used to return the depth of the last iteration that finished.
+	 * Postcondition:	Returns the depth the best move was found at.
+	 * Return:			@return the depth of the last iteration
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+}
@@ -0,0 +1,188 @@
+import java.util.Locale;
+
+/**
+ * Class:			SearchStatistics
+ * Purpose:			A snapshot of how a search went, taken after each iteration and when it ends. It
+ * 					holds the counts kept by the search and the time taken, and can be written as the
+ * 					info line sent to the coordinator:
+ * 						info depth <d> score <s> nodes <n> nps <n> time <ms> evals <n> cutoffs <n>
+ * 						firstcutoff <rate> hashhits <rate> pv <moves>
+ * 					Every count except the positions searched costs a little time in the search, so
+ * 					they are only kept when ENABLED is true. ENABLED is a constant read from the system
+ * 					property "statistics" when the program starts, so running with -Dstatistics=false
+ * 					lets the compiler remove the counting altogether.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class SearchStatistics {
+	//True if the search keeps its counts of evaluations, cut offs and hash hits
+	public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("statistics", "true"));
+
+	private int depth;			//The depth of the last iteration that finished
+	private int score;			//The score of the best move
+	private long nodes;			//The amount of positions searched
+	private long evaluations;	//The amount of positions scored by the evaluation function
+	private long cutoffs;		//The amount of positions that were cut off
+	private long firstMoveCutoffs;	//The amount of cut offs caused by the first move searched
+	private long hashProbes;	//The amount of times the transposition table was looked in
+	private long hashHits;		//The amount of times the position was found in the table
+	private long nanoseconds;	//The time the search has taken
+	private int[] line;			//The best line
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param depth the depth of the last iteration that finished
+	 * 					@param score the score of the best move
+	 * 					@param nodes the amount of positions searched
+	 * 					@param evaluations the amount of positions scored by the evaluation function
+	 * 					@param cutoffs the amount of positions that were cut off
+	 * 					@param firstMoveCutoffs the amount of cut offs caused by the first move searched
+	 * 					@param hashProbes the amount of times the transposition table was looked in
+	 * 					@param hashHits the amount of times the position was found in the table
+	 * 					@param nanoseconds the time the search has taken
+	 * 					@param line the best line
+	 */
+	public SearchStatistics(int depth, int score, long nodes, long evaluations, long cutoffs, long firstMoveCutoffs,
+			long hashProbes, long hashHits, long nanoseconds, int[] line) {
+		this.depth = depth;
+		this.score = score;
+		this.nodes = nodes;
+		this.evaluations = evaluations;
+		this.cutoffs = cutoffs;
+		this.firstMoveCutoffs = firstMoveCutoffs;
+		this.hashProbes = hashProbes;
+		this.hashHits = hashHits;
+		this.nanoseconds = nanoseconds;
+		this.line = line;
+	}
+
+	/**
+	 * Method getDepth
+	 * Purpose:			Used to return the depth of the last iteration that finished.
+	 * Return:			@return the depth of the last iteration
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Method getScore
+	 * Purpose:			Used to return the score of the best move.
+	 * Return:			@return the score of the best move
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Method getNodes
+	 * Purpose:			Used to return the amount of positions searched.
+	 * Return:			@return the amount of positions searched
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Method getEvaluations
+	 * Purpose:			Used to return the amount of positions scored by the evaluation function.
+	 * Return:			@return the amount of evaluations
+	 */
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	/**
+	 * Method getCutoffs
+	 * Purpose:			Used to return the amount of positions that were cut off.
+	 * Return:			@return the amount of cut offs
+	 */
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	/**
+	 * Method getHashProbes
+	 * Purpose:			Used to return the amount of times the transposition table was looked in.
+	 * Return:			@return the amount of looks in the table
+	 */
+	public long getHashProbes() {
+		return hashProbes;
+	}
+
+	/**
+	 * Method getHashHits
+	 * Purpose:			Used to return the amount of times the position was found in the table.
+	 * Return:			@return the amount of positions found
+	 */
+	public long getHashHits() {
+		return hashHits;
+	}
+
+	/**
+	 * Method getNanoseconds
+	 * Purpose:			Used to return the time the search has taken.
+	 * Return:			@return the time taken in nanoseconds
+	 */
+	public long getNanoseconds() {
+		return nanoseconds;
+	}
+
+	/**
+	 * Method getLine
+	 * Purpose:			Used to return a copy of the best line.
+	 * Return:			@return the moves of the best line
+	 */
+	public int[] getLine() {
+		return line.clone();
+	}
+
+	/**
+	 * Method getNodesPerSecond
+	 * Purpose:			Used to return how fast the search went.
+	 * Return:			@return the positions searched each second
+	 */
+	public long getNodesPerSecond() {
+		return nanoseconds == 0 ? 0 : nodes * 1000000000L / nanoseconds;
+	}
+
+	/**
+	 * Method getFirstMoveCutoffRate
+	 * Purpose:			Used to measure how well the moves are ordered. With perfect move ordering every
+	 * 					cut off is caused by the first move searched.
+	 * Return:			@return the share of cut offs caused by the first move searched
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * Method getHashHitRate
+	 * Purpose:			Used to measure how often a position was found in the transposition table.
+	 * Return:			@return the share of looks in the table that found the position
+	 */
+	public double getHashHitRate() {
+		return hashProbes == 0 ? 0 : (double) hashHits / hashProbes;
+	}
+
+	/**
+	 * Method toString
+	 * Purpose:			Used to write the statistics as an info line for the coordinator. The counts
+	 * 					that are not kept are left out.
+	 * Return:			@return the info line
+	 */
+	public String toString() {
+		StringBuilder info = new StringBuilder();
+		info.append("info depth ").append(depth).append(" score ").append(score).append(" nodes ").append(nodes)
+				.append(" nps ").append(getNodesPerSecond()).append(" time ").append(nanoseconds / 1000000);
+		if (ENABLED) {
+			info.append(" evals ").append(evaluations).append(" cutoffs ").append(cutoffs)
+					.append(String.format(Locale.ROOT, " firstcutoff %.3f hashhits %.3f", getFirstMoveCutoffRate(),
+							getHashHitRate()));
+		}
+		info.append(" pv");
+		for (int move : line)
+			info.append(' ').append(move);
+		return info.toString();
+	}
+}
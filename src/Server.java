@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class:			Server
+ * Purpose:			Used to play many games in one warmed up program. Coordinators connect to a port on
+ * 					this computer and each connection is a session that speaks the same commands as the
+ * 					interface does over standard input and output, with an engine of its own. Each
+ * 					session runs on a virtual thread when the Java version has them, and on a thread of
+ * 					its own otherwise. The engines share one pair of transposition tables, the opening
+ * 					book and the helper threads of the searches, so the memory used stays the same no
+ * 					matter how many games are played at once.
+ * 					Usage: java Server [port] [threads per search] [hash megabytes]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Server {
+	private static final int PORT = 4000;		//The port listened on when none is given
+	private static final int HASH = 256;		//The memory of the shared transposition table in megabytes
+
+	private TranspositionTable table;		//The transposition table shared by every search
+	private TranspositionTable solverTable;	//The transposition table shared by every solver
+	private OpeningBook book;				//The opening book shared by every engine
+	private int threads;					//The amount of threads each search uses
+	private ExecutorService workers;		//The helper threads shared by every search
+	private ExecutorService sessions;		//The threads the sessions run on
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param threads the amount of threads each search uses
+	 * 					@param megabytes the memory of the shared transposition table
+	 */
+	public Server(int threads, int megabytes) {
+		this.table = new TranspositionTable(megabytes);
+		this.solverTable = new TranspositionTable(Math.max(1, megabytes / 4));
+		this.book = new OpeningBook(Paths.get(Engine.BOOK_FILE));
+		this.threads = Math.max(1, threads);
+		this.workers = null;
+		if (this.threads > 1) {
+			this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		this.sessions = sessionThreads();
+	}
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that starts the server.
+	 * Postcondition:	Sessions are accepted until the program is stopped.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int megabytes = args.length > 2 ? Integer.parseInt(args[2]) : HASH;
+		new Server(threads, megabytes).serve(port);
+	}
+
+	/**
+	 * Method serve
+	 * Purpose:			Used to accept connections on a port of this computer only and start a session
+	 * 					for each one.
+	 * Postcondition:	Sessions are accepted until the socket fails.
+	 * Parameters:		@param port the port listened on
+	 */
+	public void serve(int port) throws IOException {
+		try (ServerSocket server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress())) {
+			System.out.println("listening on port " + server.getLocalPort());
+			while (true) {
+				Socket socket = server.accept();
+				sessions.execute(() -> session(socket));
+			}
+		}
+	}
+
+	/**
+	 * Method session
+	 * Purpose:			Used to play the games of one connection with an engine of its own.
+	 * Postcondition:	The connection is closed once the coordinator quits or disconnects.
+	 * Parameters:		@param socket the connection to the coordinator
+	 */
+	private void session(Socket socket) {
+		try (socket) {
+			socket.setTcpNoDelay(true);
+			Engine engine = new Engine(table, solverTable, book, threads, workers);
+			new Interface().read(socket.getInputStream(), socket.getOutputStream(), engine);
+		}
+		catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Method sessionThreads
+	 * Purpose:			Used to create the threads the sessions run on. Virtual threads are looked up by
+	 * 					name so the server still builds and runs on versions of Java without them, where
+	 * 					a new daemon thread is used for each session instead.
+	 * Return:			@return the threads for the sessions
+	 */
+	private static ExecutorService sessionThreads() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "session");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
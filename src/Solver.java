@@ -0,0 +1,271 @@
+/**
+ * Class:			Solver
+ * Purpose:			Used to solve a position exactly once few empty cells are left, instead of scoring
+ * 					it with the evaluation function. A position is scored by how soon it is won:
+ * 						positive	=	The side to move wins. A win with the marker dropped after n
+ * 										markers are on the board scores (43 - n) / 2, so a quicker
+ * 										win scores more;
+ * 						zero		=	The game is a draw;
+ * 						negative	=	The side to move loses, scored as the win of the other side.
+ * 					The score is found with null window searches that each only tell whether the score
+ * 					is above a guess, narrowing the range of possible scores by half every time. Moves
+ * 					that let the other side win straight away are never searched, and moves that make
+ * 					the most winning cells are searched first. Scores are kept in a transposition
+ * 					table of their own, as they do not mean the same as the scores of the search. A
+ * 					position and its mirror image have the same score, so they share their entries.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Solver {
+	public static final int UNKNOWN = Integer.MIN_VALUE;	//The score when the solver ran out of time
+	private static final int CELLS = Board.WIDTH * Board.HEIGHT;	//The number of cells on the board
+	private static final int CHECK_INTERVAL = 1023;	//The nodes searched between checks of the clock
+	private static final int[] CENTER_ORDER = {3, 2, 4, 1, 5, 0, 6};	//Columns from the center outwards
+
+	private Board board;		//The board the solver updates and undoes moves on
+	private TranspositionTable table;	//The bounds of the scores of solved positions
+	private int[][] moves;		//The moves of each ply, in the order they are searched
+	private int[][] orderScores;	//The order score of each move of each ply
+	private int score;			//The score of the position, or UNKNOWN
+	private long nodes;			//The amount of positions searched
+	private long deadline;		//The time the solver must stop at, or zero for no limit
+	private boolean stopped;	//True once the time has run out
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param board the board being solved. It is copied so the game is not changed.
+	 * 					@param table the transposition table kept for solving
+	 */
+	public Solver(Board board, TranspositionTable table) {
+		this.board = new Board(board);
+		this.table = table;
+		this.moves = new int[CELLS + 1][Board.WIDTH];
+		this.orderScores = new int[CELLS + 1][Board.WIDTH];
+		this.score = UNKNOWN;
+		this.nodes = 0;
+		this.deadline = 0;
+		this.stopped = false;
+	}
+
+	/**
+	 * Method bestMove
+	 * Purpose:			Used to solve the position and find a move that keeps its score.
+	 * Precondition:	The game must not have finished and the player must be the side to move.
+	 * Postcondition:	Returns the best move and sets the score, or returns -1 and leaves the score
+	 * 					UNKNOWN if the time ran out first.
+	 * Parameters:		@param milliseconds the time the solver may use, or zero for no limit
+	 * Return:			@return the best move or -1
+	 */
+	public int bestMove(long milliseconds) {
+		this.deadline = milliseconds > 0 ? System.nanoTime() + milliseconds * 1000000 : 0;
+		this.stopped = false;
+		this.score = UNKNOWN;
+		int count = board.getMoveCount();
+		long playable = board.playableCells();
+		long wins = board.winningCells(1) & playable;
+		for (int column : CENTER_ORDER) {
+			if ((wins & Board.columnCells(column)) != 0) {
+				this.score = (CELLS + 1 - count) / 2;
+				return column;
+			}
+		}
+		int solved = solve(count);
+		if (stopped)
+			return -1;
+		int losing = -(CELLS - count) / 2;	//The score of every move when the other side wins next
+		int last = -1;
+		for (int column : CENTER_ORDER) {
+			if ((playable & Board.columnCells(column)) == 0)
+				continue;
+			last = column;
+			board.update(column, 1);
+			boolean found;
+			if ((board.winningCells(-1) & board.playableCells()) != 0)
+				found = solved == losing;
+			else
+				found = negamax(-solved, -solved + 1, -1, 1) <= -solved;
+			board.undo(column);
+			if (stopped)
+				return -1;
+			if (found) {
+				this.score = solved;
+				return column;
+			}
+		}
+		this.score = solved;
+		return last;
+	}
+
+	/**
+	 * Method solve
+	 * Purpose:			Used to find the score of the position with null window searches. Each search
+	 * 					tells whether the score is above a guess, and the guess is moved towards zero
+	 * 					so that the quick searches near a draw are tried first.
+	 * Precondition:	The player must not be able to win with the next move.
+	 * Postcondition:	Returns the score of the position for the player.
+	 * Parameters:		@param count the amount of markers on the board
+	 * Return:			@return the score of the position
+	 */
+	private int solve(int count) {
+		int min = -(CELLS - count) / 2;
+		int max = (CELLS + 1 - count) / 2;
+		while (min < max && !stopped) {
+			int guess = min + (max - min) / 2;
+			if (guess <= 0 && min / 2 < guess)
+				guess = min / 2;
+			else if (guess >= 0 && max / 2 > guess)
+				guess = max / 2;
+			int result = negamax(guess, guess + 1, 1, 0);
+			if (result <= guess)
+				max = result;
+			else
+				min = result;
+		}
+		return min;
+	}
+
+	/**
+	 * Method negamax
+	 * Purpose:			An alpha beta search of the exact score of a position. Moves that let the other
+	 * 					side win straight away are left out, so a child can never be won with its first
+	 * 					move and only needs to be searched if some move is left.
+	 * Precondition:	The side to move must not be able to win with the next move.
+	 * Postcondition:	Returns the score if it lies between alpha and beta, otherwise a bound on the
+	 * 					side of the window it lies. The board is left as it was.
+	 * Parameters:		@param alpha the score the side to move is already sure of
+	 * 					@param beta the score the other side is already sure of
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * 					@param ply the amount of moves made from the root
+	 * Return:			@return the score of the position for the side to move
+	 */
+	private int negamax(int alpha, int beta, int turn, int ply) {
+		if ((++nodes & CHECK_INTERVAL) == 0 && deadline != 0 && System.nanoTime() > deadline)
+			this.stopped = true;
+		if (stopped)
+			return 0;
+		int count = board.getMoveCount();
+		long playable = board.playableCells();
+		long threats = board.winningCells(-turn);
+		long forced = playable & threats;
+		long candidates = playable & ~(threats >>> 1);
+		if (forced != 0) {
+			if (Long.bitCount(forced) > 1)
+				return -(CELLS - count) / 2;
+			candidates &= forced;
+		}
+		if (candidates == 0)
+			return -(CELLS - count) / 2;
+		if (count >= CELLS - 2)
+			return 0;
+		int min = -(CELLS - 2 - count) / 2;
+		if (alpha < min) {
+			alpha = min;
+			if (alpha >= beta)
+				return alpha;
+		}
+		int max = (CELLS - 1 - count) / 2;
+		if (beta > max) {
+			beta = max;
+			if (alpha >= beta)
+				return beta;
+		}
+		long hash = board.getCanonicalHash(turn);
+		long entry = table.probe(hash);
+		if (entry != 0) {
+			int stored = TranspositionTable.score(entry);
+			if (TranspositionTable.bound(entry) == TranspositionTable.UPPER && beta > stored) {
+				beta = stored;
+				if (alpha >= beta)
+					return beta;
+			}
+			else if (TranspositionTable.bound(entry) == TranspositionTable.LOWER && alpha < stored) {
+				alpha = stored;
+				if (alpha >= beta)
+					return alpha;
+			}
+		}
+		int length = orderMoves(ply, turn, candidates);
+		for (int i = 0; i < length; i++) {
+			int move = moves[ply][i];
+			board.update(move, turn);
+			int value = -negamax(-beta, -alpha, -turn, ply + 1);
+			board.undo(move);
+			if (stopped)
+				return 0;
+			if (value >= beta) {
+				table.store(hash, value, CELLS - count, TranspositionTable.LOWER, move);
+				return value;
+			}
+			if (value > alpha)
+				alpha = value;
+		}
+		table.store(hash, alpha, CELLS - count, TranspositionTable.UPPER, TranspositionTable.NO_MOVE);
+		return alpha;
+	}
+
+	/**
+	 * Method orderMoves
+	 * Purpose:			Used to sort the moves of a ply so the moves that leave the side to move with
+	 * 					the most winning cells are searched first, with ties broken from the center
+	 * 					outwards.
+	 * Postcondition:	The moves of the ply are filled in the order they are searched.
+	 * Parameters:		@param ply the amount of moves made from the root
+	 * 					@param turn 1 = player's turn. -1 = opponent's turn
+	 * 					@param candidates the cells of the moves searched
+	 * Return:			@return the amount of moves
+	 */
+	private int orderMoves(int ply, int turn, long candidates) {
+		int[] order = moves[ply];
+		int[] scores = orderScores[ply];
+		int length = 0;
+		for (int column : CENTER_ORDER) {
+			if ((candidates & Board.columnCells(column)) == 0)
+				continue;
+			int value = Long.bitCount(board.winningCellsAfter(column, turn));
+			int i = length++;
+			while (i > 0 && scores[i - 1] < value) {
+				order[i] = order[i - 1];
+				scores[i] = scores[i - 1];
+				i--;
+			}
+			order[i] = column;
+			scores[i] = value;
+		}
+		return length;
+	}
+
+	/**
+	 * Method getScore
+	 * Purpose:			Used to return the score of the position found by the last call to bestMove.
+	 * Return:			@return the score of the position, or UNKNOWN
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Method getNodes
+	 * Purpose:			Used to return the amount of positions searched.
+	 * Return:			@return the amount of positions searched
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Method describe
+	 * Purpose:			Used to turn a score into the proven result and the amount of moves, counting
+	 * 					both sides, until the game ends with that result.
+	 * Postcondition:	Returns "win", "loss" or "draw" followed by the amount of moves.
+	 * Parameters:		@param score the score of the position for the side to move
+	 * 					@param count the amount of markers on the board
+	 * Return:			@return the result and its distance
+	 */
+	public static String describe(int score, int count) {
+		if (score > 0)
+			return "win " + (CELLS + 1 - 2 * score - (count + 1) % 2 - count + 1);
+		if (score < 0)
+			return "loss " + (CELLS + 1 + 2 * score - count % 2 - count + 1);
+		return "draw " + (CELLS - count);
+	}
+}
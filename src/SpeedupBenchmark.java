@@ -0,0 +1,87 @@
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class:			SpeedupBenchmark
+ * Purpose:			Used to measure how much faster the search runs with more threads. A fixed set of
+ * 					positions is searched to a fixed depth with one thread, then with twice as many,
+ * 					and so on up to the amount of cores. Each run starts with an empty transposition
+ * 					table. The time, positions searched and speedup of each run are printed, and a run
+ * 					that picks a different move from the run on one thread is reported.
+ * 					Usage: java SpeedupBenchmark [depth] [maximum threads]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class SpeedupBenchmark {
+	//The positions searched, given as the columns played from an empty board
+	private static final String[] POSITIONS = {"", "3", "3342", "33224541", "3332224440155", "32344256625361"};
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that runs the benchmark.
+	 * Postcondition:	One line is printed for each amount of threads.
+	 */
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 14;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int[] expected = null;
+		double baseTime = 0;
+		System.out.println("threads\ttime(ms)\tnodes\tspeedup");
+		for (int threads : threadCounts(maxThreads)) {
+			ExecutorService workers = threads > 1 ? Executors.newFixedThreadPool(threads - 1) : null;
+			int[] moves = new int[POSITIONS.length];
+			long nodes = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < POSITIONS.length; i++) {
+				Search search = new Search(new Board(parse(POSITIONS[i])), new TranspositionTable(64));
+				search.setThreads(threads, workers);
+				moves[i] = search.bestMove(depth, 0);
+				nodes += search.getNodes();
+			}
+			double time = (System.nanoTime() - start) / 1e6;
+			if (workers != null)
+				workers.shutdown();
+			if (expected == null) {
+				expected = moves;
+				baseTime = time;
+			}
+			System.out.printf(Locale.ROOT, "%d\t%.0f\t%d\t%.2f%n", threads, time, nodes, baseTime / time);
+			for (int i = 0; i < moves.length; i++) {
+				if (moves[i] != expected[i])
+					System.out.println("Position \"" + POSITIONS[i] + "\" picked " + moves[i] + " instead of " + expected[i]);
+			}
+		}
+	}
+
+	/**
+	 * Method threadCounts
+	 * Purpose:			Used to list the amounts of threads the benchmark runs with: one, then twice as
+	 * 					many each time, and the maximum last if it is not one of them.
+	 * Parameters:		@param maxThreads the most threads used
+	 * Return:			@return the amounts of threads, from fewest to most
+	 */
+	private static int[] threadCounts(int maxThreads) {
+		int count = 0;
+		for (int threads = 1; threads < maxThreads; threads *= 2)
+			count++;
+		int[] counts = new int[count + 1];
+		for (int i = 0; i < count; i++)
+			counts[i] = 1 << i;
+		counts[count] = Math.max(1, maxThreads);
+		return counts;
+	}
+
+	/**
+	 * Method parse
+	 * Purpose:			Used to turn a string of column digits into a list of moves.
+	 * Parameters:		@param line the columns played, one digit each
+	 * Return:			@return the list of moves
+	 */
+	private static int[] parse(String line) {
+		int[] moves = new int[line.length()];
+		for (int i = 0; i < moves.length; i++)
+			moves[i] = line.charAt(i) - '0';
+		return moves;
+	}
+}
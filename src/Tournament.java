@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class:			Tournament
+ * Purpose:			Used to compare two settings of the engine by playing them against each other in
+ * 					the same program, many games at once across every core. Each setting is a list of
+ * 					engine settings such as "depth=9,solver=0", plus "movetime=<ms>" for the time given
+ * 					for each move. The games are played in pairs from the same random opening, once with
+ * 					each setting moving first, so neither side gains from the opening or from moving
+ * 					first. A line is written to the results file as soon as each game ends:
+ * 						game, opening, first, result, moves, nodes per move of A and B, time per move of A
+ * 						and B in milliseconds;
+ * 					where first is the setting that moved first and result is 1, 0.5 or 0 points for A.
+ * 					The score of A and an estimate of how much stronger it is in Elo are printed as the
+ * 					games finish and written to the end of the file. Each thread of the pool keeps one
+ * 					engine of each setting and starts a new game on them for every game it plays, so
+ * 					the engines and their tables are made once per thread rather than once per game.
+ * 					Usage: java Tournament <games> <settings A> <settings B> [file] [threads] [opening plies]
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class Tournament {
+	private String[] settings;	//The settings of A and B
+	private long[] moveTimes;	//The time given for each move of A and B, or zero for a fixed depth
+	private PrintWriter results;	//The file the results are written to
+	private ThreadLocal<Engine[]> engines;	//The engines of A and B used by each thread of the pool
+	private int openingPlies;	//The amount of random moves each opening is made of
+	private double points;		//The points A has scored so far
+	private int wins;			//The games A has won so far
+	private int draws;			//The games drawn so far
+	private int losses;			//The games A has lost so far
+
+	/**
+	 * Constructor with parameters to initialize all global variables.
+	 * Parameters:		@param a the settings of A
+	 * 					@param b the settings of B
+	 * 					@param results the file the results are written to
+	 * 					@param openingPlies the amount of random moves each opening is made of
+	 */
+	public Tournament(String a, String b, PrintWriter results, int openingPlies) {
+		this.settings = new String[] {a, b};
+		this.moveTimes = new long[] {moveTime(a), moveTime(b)};
+		this.results = results;
+		this.engines = ThreadLocal.withInitial(() -> new Engine[] {engine(a), engine(b)});
+		this.openingPlies = openingPlies;
+		this.points = 0;
+		this.wins = 0;
+		this.draws = 0;
+		this.losses = 0;
+	}
+
+	/**
+	 * Method main
+	 * Purpose:			Main method that plays the tournament.
+	 * Postcondition:	The results of every game and the final score are written to the file.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 3) {
+			System.out.println("Usage: java Tournament <games> <settings A> <settings B> [file] [threads] [opening plies]");
+			return;
+		}
+		int games = Integer.parseInt(args[0]);
+		String file = args.length > 3 ? args[3] : "tournament.csv";
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		int openingPlies = args.length > 5 ? Integer.parseInt(args[5]) : 4;
+		try (PrintWriter results = new PrintWriter(Files.newBufferedWriter(Paths.get(file)))) {
+			Tournament tournament = new Tournament(args[1], args[2], results, openingPlies);
+			tournament.play(games, threads);
+		}
+	}
+
+	/**
+	 * Method play
+	 * Purpose:			Used to play every game of the tournament on a pool of threads.
+	 * Postcondition:	Every game has been played and the final score has been written.
+	 * Parameters:		@param games the amount of games played
+	 * 					@param threads the amount of games played at once
+	 */
+	public void play(int games, int threads) throws InterruptedException {
+		results.println("game,opening,first,result,moves,nodesA,nodesB,timeA,timeB");
+		results.println("# A: " + settings[0]);
+		results.println("# B: " + settings[1]);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			ArrayList<Future<?>> played = new ArrayList<Future<?>>();
+			Random random = new Random(3307768);
+			for (int i = 0; i < games; i += 2) {
+				int[] opening = opening(random);
+				for (int j = i; j < Math.min(games, i + 2); j++) {
+					int game = j;
+					played.add(pool.submit(() -> play(game, opening, game % 2)));
+				}
+			}
+			for (Future<?> game : played) {
+				try {
+					game.get();
+				}
+				catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		String summary = summary();
+		results.println("# " + summary);
+		System.out.println(summary);
+	}
+
+	/**
+	 * Method play
+	 * Purpose:			Used to play one game between A and B from an opening. Each engine sees the game
+	 * 					from its own side, as the player, with the other engine as the opponent. The
+	 * 					engines of the thread start a new game first, so nothing is kept from the last one.
+	 * Postcondition:	The result of the game is recorded and written to the file.
+	 * Parameters:		@param game the number of the game
+	 * 					@param opening the moves the game starts with
+	 * 					@param first 0 if A moves first, 1 if B moves first
+	 */
+	private void play(int game, int[] opening, int first) {
+		Engine[] engines = this.engines.get();
+		for (Engine engine : engines)
+			engine.newGame();
+		Board board = new Board();
+		long[] nodes = new long[2];
+		long[] time = new long[2];
+		int[] moves = new int[2];
+		int side = first;
+		for (int move : opening) {
+			board.update(move, side == 0 ? 1 : -1);
+			engines[side].updateBoard(move, 1);
+			engines[1 - side].updateBoard(move, -1);
+			side = 1 - side;
+		}
+		while (!board.hasFinished()) {
+			long start = System.nanoTime();
+			int move = engines[side].bestMove(moveTimes[side]);
+			time[side] += System.nanoTime() - start;
+			nodes[side] += engines[side].getNodes();
+			moves[side]++;
+			board.update(move, side == 0 ? 1 : -1);
+			engines[1 - side].updateBoard(move, -1);
+			side = 1 - side;
+		}
+		double result = board.hasWon(1) ? 1 : board.hasWon(-1) ? 0 : 0.5;
+		StringBuilder line = new StringBuilder();
+		for (int move : opening)
+			line.append(move);
+		record(String.format(Locale.ROOT, "%d,%s,%s,%s,%d,%d,%d,%.1f,%.1f", game, line, first == 0 ? "A" : "B",
+				result == 0.5 ? "0.5" : (int) result, board.getMoveCount(),
+				nodes[0] / Math.max(1, moves[0]), nodes[1] / Math.max(1, moves[1]),
+				time[0] / 1e6 / Math.max(1, moves[0]), time[1] / 1e6 / Math.max(1, moves[1])), result);
+	}
+
+	/**
+	 * Method record
+	 * Purpose:			Used to add the result of a game to the score and write its line to the file
+	 * 					straight away, so the results can be read while the tournament runs.
+	 * Parameters:		@param line the line of the game
+	 * 					@param result the points A scored in the game
+	 */
+	private synchronized void record(String line, double result) {
+		points += result;
+		if (result == 1)
+			wins++;
+		else if (result == 0)
+			losses++;
+		else
+			draws++;
+		results.println(line);
+		results.flush();
+		if ((wins + draws + losses) % 100 == 0)
+			System.out.println(summary());
+	}
+
+	/**
+	 * Method summary
+	 * Purpose:			Used to describe the score of A so far with the difference in Elo it suggests and
+	 * 					its 95% margin of error, found from the spread of the points of each game.
+	 * Return:			@return the score of A so far
+	 */
+	private synchronized String summary() {
+		int games = wins + draws + losses;
+		if (games == 0)
+			return "no games played";
+		double score = points / games;
+		double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+				+ losses * Math.pow(score, 2)) / games;
+		double margin = 1.96 * Math.sqrt(variance / games);
+		return String.format(Locale.ROOT, "games %d: A +%d =%d -%d, score %.3f, Elo %s (%s to %s)", games, wins,
+				draws, losses, score, elo(score), elo(score - margin), elo(score + margin));
+	}
+
+	/**
+	 * Method elo
+	 * Purpose:			Used to turn a score into the difference in Elo rating that would expect it.
+	 * Parameters:		@param score the share of the points scored
+	 * Return:			@return the difference in Elo, rounded to a whole number
+	 */
+	private static String elo(double score) {
+		if (score <= 0)
+			return "-inf";
+		if (score >= 1)
+			return "+inf";
+		return String.format(Locale.ROOT, "%+.0f", -400 * Math.log10(1 / score - 1));
+	}
+
+	/**
+	 * Method opening
+	 * Purpose:			Used to make a random opening that has not finished the game. A column that is
+	 * 					already full is drawn again, so every move of the opening can be played.
+	 * Parameters:		@param random the random numbers the opening is made from
+	 * Return:			@return the moves of the opening
+	 */
+	private int[] opening(Random random) {
+		int[] moves = new int[openingPlies];
+		Board board = new Board();
+		for (int i = 0; i < moves.length; i++) {
+			do {
+				moves[i] = random.nextInt(Board.WIDTH);
+			} while (board.isIllegal(moves[i]));
+			board.update(moves[i], i % 2 == 0 ? 1 : -1);
+		}
+		return board.hasFinished() ? opening(random) : moves;
+	}
+
+	/**
+	 * Method engine
+	 * Purpose:			Used to create an engine with the given settings. Engines do not ponder unless
+	 * 					asked to, so the engines do not take time from the other games.
+	 * Parameters:		@param settings the settings, such as "depth=9,solver=0"
+	 * Return:			@return the engine
+	 */
+	private static Engine engine(String settings) {
+		Engine engine = new Engine();
+		for (String setting : settings.split(",")) {
+			String[] pair = setting.split("=", 2);
+			if (pair.length == 2 && !pair[0].trim().equals("movetime"))
+				engine.setOption(pair[0].trim(), pair[1].trim());
+		}
+		return engine;
+	}
+
+	/**
+	 * Method moveTime
+	 * Purpose:			Used to find the time given for each move in a list of settings.
+	 * Parameters:		@param settings the settings, such as "depth=9,movetime=100"
+	 * Return:			@return the time for each move in milliseconds, or zero for a fixed depth
+	 */
+	private static long moveTime(String settings) {
+		for (String setting : settings.split(",")) {
+			String[] pair = setting.split("=", 2);
+			if (pair.length == 2 && pair[0].trim().equals("movetime"))
+				return Long.parseLong(pair[1].trim());
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * Class:			TranspositionTable
+ * Purpose:			Used to remember the results of positions that have already been searched so that
+ * 					a position reached again through a different order of moves does not need to be
+ * 					searched again. The table has a fixed number of slots held in two primitive arrays:
+ * 					one for the hash of the position and one for the packed entry. Each entry holds:
+ * 						bits  0-31	=	The score of the position for the side to move;
+ * 						bits 32-39	=	The depth the position was searched to;
+ * 						bits 40-41	=	The bound type of the score (EXACT, LOWER or UPPER);
+ * 						bits 42-45	=	The best move found, or NO_MOVE;
+ * 						bits 46-53	=	The search the entry was stored in;
+ * 						bit  54		=	Set for every stored entry.
+ * 					When two positions share a slot, the new entry replaces the old one if the slot is
+ * 					empty, holds the same position, was stored by an earlier search, or was searched to
+ * 					a depth no greater than the new entry.
+ * 					The table is shared by the threads of a search without locks. The hash is stored
+ * 					combined with the entry by exclusive or, so a slot written by two threads at once
+ * 					no longer matches either hash and is treated as empty.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class TranspositionTable {
+	public static final int EXACT = 0;			//The score is the value of the position
+	public static final int LOWER = 1;			//The value of the position is at least the score
+	public static final int UPPER = 2;			//The value of the position is at most the score
+	public static final int NO_MOVE = 15;		//Stored when no best move is known
+	private static final int ENTRY_BYTES = 16;	//The memory used by each slot
+	private static final long USED = 1L << 54;
+
+	private long[] hashes;		//The hash of the position stored in each slot, combined with its entry
+	private long[] entries;		//The packed entry stored in each slot
+	private int mask;			//Used to map a hash onto a slot
+	private int generation;		//The number of the current search
+
+	/**
+	 * Constructor with a parameter to initialize all global variables.
+	 * Parameters:		@param megabytes the memory the table may use
+	 */
+	public TranspositionTable(int megabytes) {
+		resize(megabytes);
+	}
+
+	/**
+	 * Method resize
+	 * Purpose:			Used to change the amount of memory used by the table. The number of slots is
+	 * 					the largest power of two that fits, so a slot can be found with a mask.
+	 * Postcondition:	The table is replaced with an empty table of the new size.
+	 * Parameters:		@param megabytes the memory the table may use
+	 */
+	public void resize(int megabytes) {
+		long slots = Math.max(1, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+		int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+		this.hashes = new long[size];
+		this.entries = new long[size];
+		this.mask = size - 1;
+		this.generation = 0;
+	}
+
+	/**
+	 * Method clear
+	 * Purpose:			Used to remove every entry from the table.
+	 * Postcondition:	Every slot in the table is empty.
+	 */
+	public void clear() {
+		Arrays.fill(hashes, 0);
+		Arrays.fill(entries, 0);
+		this.generation = 0;
+	}
+
+	/**
+	 * Method newSearch
+	 * Purpose:			Used to mark the start of a new search. Entries stored by earlier searches are
+	 * 					kept for probing but are replaced first.
+	 * Postcondition:	The search number is increased.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+	/**
+	 * Method probe
+	 * Purpose:			Used to look up a position in the table.
+	 * Postcondition:	Returns the packed entry of the position, or zero if it is not stored.
+	 * Parameters:		@param hash the hash of the position
+	 * Return:			@return the packed entry or zero
+	 */
+	public long probe(long hash) {
+		int index = (int) hash & mask;
+		long entry = entries[index];
+		if ((hashes[index] ^ entry) != hash)
+			return 0;
+		return entry;
+	}
+
+	/**
+	 * Method store
+	 * Purpose:			Used to save the result of a search of a position, following the replacement
+	 * 					policy of the table.
+	 * Postcondition:	The entry is stored unless the slot holds a deeper result from the same search.
+	 * Parameters:		@param hash the hash of the position
+	 * 					@param score the score of the position for the side to move
+	 * 					@param depth the depth the position was searched to
+	 * 					@param bound the bound type of the score
+	 * 					@param move the best move found, or NO_MOVE
+	 */
+	public void store(long hash, int score, int depth, int bound, int move) {
+		int index = (int) hash & mask;
+		long old = entries[index];
+		if (old != 0 && (hashes[index] ^ old) != hash && generation(old) == generation && depth(old) > depth)
+			return;
+		long entry = (score & 0xFFFFFFFFL) | ((long) depth << 32) | ((long) bound << 40)
+				| ((long) move << 42) | ((long) generation << 46) | USED;
+		hashes[index] = hash ^ entry;
+		entries[index] = entry;
+	}
+
+	/**
+	 * Method score
+	 * Purpose:			Used to return the score held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the score for the side to move
+	 */
+	public static int score(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * Method depth
+	 * Purpose:			Used to return the depth held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the depth the position was searched to
+	 */
+	public static int depth(long entry) {
+		return (int) (entry >>> 32) & 0xFF;
+	}
+
+	/**
+	 * Method bound
+	 * Purpose:			Used to return the bound type held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return EXACT, LOWER or UPPER
+	 */
+	public static int bound(long entry) {
+		return (int) (entry >>> 40) & 3;
+	}
+
+	/**
+	 * Method move
+	 * Purpose:			Used to return the best move held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the best move, or NO_MOVE
+	 */
+	public static int move(long entry) {
+		return (int) (entry >>> 42) & 15;
+	}
+
+	/**
+	 * Method generation
+	 * Purpose:			Used to return the search number held in a packed entry.
+	 * Parameters:		@param entry the packed entry
+	 * Return:			@return the search the entry was stored in
+	 */
+	private static int generation(long entry) {
+		return (int) (entry >>> 46) & 0xFF;
+	}
+}
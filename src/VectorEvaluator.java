@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Class:			VectorEvaluator
+ * Purpose:			Used to score packed positions with the incubating Vector API, as many positions at
+ * 					once as the vector registers hold bitboards: eight with AVX-512 and four with AVX2.
+ * 					Each lane counts the sequences of its bitboards with the shifts of Board.counts, all
+ * 					made towards the lowest bit so every direction is the same code with its own shift
+ * 					and masks. Versions of Java from 19 on can count the bits of every lane at once,
+ * 					which is looked up by name so the class still builds on Java 17. Without it the bits
+ * 					are counted with shifts and masks inside each register: pairs of bits are added,
+ * 					then pairs of pairs, then the halves of each byte. The byte counts of the four
+ * 					directions are added before the bytes of each lane are added together, as no byte
+ * 					can grow past 32.
+ * 					The compiler only keeps vectors in registers when every operation on them is inlined
+ * 					into the loop, so the work is split into short passes over the whole batch, each a
+ * 					loop of its own: one pass for each direction of each player, adding to arrays of
+ * 					partial counts, then a pass that turns the counts into scores. The evaluator keeps
+ * 					the arrays between calls, so each thread needs an evaluator of its own. The
+ * 					positions left over after the last full vector are scored one at a time.
+ * 					The class is only loaded through BatchEvaluator.create, and needs the program to be
+ * 					compiled and run with --add-modules jdk.incubator.vector.
+ * Student Name:	Sean Crocker
+ * Student Number:	3307768
+ */
+public class VectorEvaluator extends BatchEvaluator {
+	private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;	//The widest vector of longs
+	//The vector of ints with as many lanes as the vector of longs
+	private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class,
+			VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+	private static final int H1 = Board.HEIGHT + 1;	//The number of bits used by each column
+	//The shift to the next cell horizontally, vertically and along both diagonals, towards the lowest bit
+	private static final int[] SHIFTS = {H1, 1, H1 + 1, H1 - 1};
+	//The cells each sequence of two and three counted in each direction starts at, found from the masks
+	//of Board.counts, which mark the other end of a sequence vertically and on the negative slope
+	private static final long[] TWO_STARTS = {Board.HORIZONTAL_START, Board.VERTICAL_START >>> 1,
+			Board.POSITIVE_START, Board.NEGATIVE_START >>> (H1 - 1)};
+	private static final long[] THREE_STARTS = {Board.HORIZONTAL_START, Board.VERTICAL_START >>> 2,
+			Board.POSITIVE_START, Board.NEGATIVE_START >>> 2 * (H1 - 1)};
+	//The operator counting the bits of each lane, or null on versions of Java without it
+	private static final VectorOperators.Unary BIT_COUNT = bitCount();
+	//The masks of every other bit, pair of bits and half byte, used to count bits without it
+	private static final long BITS = 0x5555555555555555L;
+	private static final long PAIRS = 0x3333333333333333L;
+	private static final long HALVES = 0x0F0F0F0F0F0F0F0FL;
+	private static final int WON = 16;			//The bit of the counts of a position set when there is four together
+	private static final int SEQUENCES = (1 << WON) - 1;	//The bits of the counts holding the score of the sequences
+
+	private long[] threes;		//The counted bits of the sequences of three of each position
+	private long[] twos;		//The counted bits of the sequences of two of each position
+	private long[] fours;		//The first cells of the sequences of four of each position
+
+	/**
+	 * Default constructor for the evaluator using the Vector API.
+	 */
+	public VectorEvaluator() {
+		super();
+		this.threes = new long[0];
+		this.twos = new long[0];
+		this.fours = new long[0];
+	}
+
+	/**
+	 * Method getLanes
+	 * Purpose:			Used to tell how many positions are scored with each instruction.
+	 * Return:			@return the amount of longs a vector register holds
+	 */
+	public int getLanes() {
+		return LONGS.length();
+	}
+
+	/**
+	 * Method evaluate
+	 * Purpose:			Used to score packed positions a vector at a time. The player's counts of every
+	 * 					position are worked out first and kept in the scores, then the opponent's counts
+	 * 					are worked out and taken away, keeping the player's win over the opponent's.
+	 * Postcondition:	The first count scores are set.
+	 * Parameters:		@param players the bitboard of the player's markers of each position
+	 * 					@param opponents the bitboard of the opponent's markers of each position
+	 * 					@param scores the scores of the positions, for the player
+	 * 					@param count the amount of positions scored
+	 */
+	public void evaluate(long[] players, long[] opponents, int[] scores, int count) {
+		int bound = LONGS.loopBound(count);
+		if (threes.length < bound) {
+			this.threes = new long[bound];
+			this.twos = new long[bound];
+			this.fours = new long[bound];
+		}
+		count(players, bound);
+		keepPlayers(scores, bound);
+		count(opponents, bound);
+		subtractOpponents(scores, bound);
+		for (int i = bound; i < count; i++)
+			scores[i] = evaluate(players[i], opponents[i]);
+	}
+
+	/**
+	 * Method count
+	 * Purpose:			Used to work out the partial counts of one player of every position that fills a
+	 * 					vector, one direction at a time.
+	 * Postcondition:	The arrays of partial counts hold the counts of the bitboards.
+	 * Parameters:		@param bitboards the bitboard of the player's markers of each position
+	 * 					@param bound the amount of positions that fill whole vectors
+	 */
+	private void count(long[] bitboards, int bound) {
+		Arrays.fill(threes, 0, bound, 0);
+		Arrays.fill(twos, 0, bound, 0);
+		Arrays.fill(fours, 0, bound, 0);
+		for (int direction = 0; direction < SHIFTS.length; direction++)
+			count(bitboards, bound, SHIFTS[direction], TWO_STARTS[direction], THREE_STARTS[direction]);
+	}
+
+	/**
+	 * Method count
+	 * Purpose:			Used to add the sequences in one direction of every position that fills a vector
+	 * 					to the partial counts. Shifting the bitboard lines up the next cell of every
+	 * 					sequence with its first cell, as in Board.counts.
+	 * Postcondition:	The sequences in the direction are added to the arrays of partial counts.
+	 * Parameters:		@param bitboards the bitboard of the player's markers of each position
+	 * 					@param bound the amount of positions that fill whole vectors
+	 * 					@param shift the shift to the next cell in the direction
+	 * 					@param twoStarts the cells the sequences of two counted start at
+	 * 					@param threeStarts the cells the sequences of three counted start at
+	 */
+	private void count(long[] bitboards, int bound, int shift, long twoStarts, long threeStarts) {
+		for (int i = 0; i < bound; i += LONGS.length()) {
+			LongVector m = LongVector.fromArray(LONGS, bitboards, i);
+			LongVector p2 = m.and(m.lanewise(VectorOperators.LSHR, shift));
+			LongVector p3 = p2.and(m.lanewise(VectorOperators.LSHR, 2 * shift));
+			LongVector.fromArray(LONGS, fours, i).or(p3.and(m.lanewise(VectorOperators.LSHR, 3 * shift)))
+					.intoArray(fours, i);
+			LongVector.fromArray(LONGS, threes, i).add(bitCounts(p3.and(threeStarts))).intoArray(threes, i);
+			LongVector.fromArray(LONGS, twos, i).add(bitCounts(p2.and(twoStarts))).intoArray(twos, i);
+		}
+	}
+
+	/**
+	 * Method keepPlayers
+	 * Purpose:			Used to keep the player's counts of every position that fills a vector in the
+	 * 					scores while the opponent's are worked out.
+	 * Precondition:	The arrays of partial counts must hold the player's counts.
+	 * Postcondition:	Each score holds the player's counts, as given by counts.
+	 * Parameters:		@param scores the scores of the positions
+	 * 					@param bound the amount of positions that fill whole vectors
+	 */
+	private void keepPlayers(int[] scores, int bound) {
+		for (int i = 0; i < bound; i += LONGS.length())
+			counts(i).intoArray(scores, i);
+	}
+
+	/**
+	 * Method subtractOpponents
+	 * Purpose:			Used to turn the counts of both players of every position that fills a vector
+	 * 					into its score.
+	 * Precondition:	Each score must hold the player's counts and the arrays of partial counts must
+	 * 					hold the opponent's.
+	 * Postcondition:	Each score is the score of the position for the player.
+	 * Parameters:		@param scores the scores of the positions
+	 * 					@param bound the amount of positions that fill whole vectors
+	 */
+	private void subtractOpponents(int[] scores, int bound) {
+		for (int i = 0; i < bound; i += LONGS.length()) {
+			IntVector opponent = counts(i);
+			IntVector player = IntVector.fromArray(INTS, scores, i);
+			IntVector playerWon = player.lanewise(VectorOperators.LSHR, WON);
+			IntVector opponentWon = opponent.lanewise(VectorOperators.LSHR, WON).and(playerWon.not());
+			IntVector won = playerWon.sub(opponentWon);			//1, -1 or 0 for the side that has won
+			player.and(SEQUENCES).sub(opponent.and(SEQUENCES))
+					.add(won.lanewise(VectorOperators.LSHL, 6))			//100 = 64 + 32 + 4
+					.add(won.lanewise(VectorOperators.LSHL, 5))
+					.add(won.lanewise(VectorOperators.LSHL, 2))
+					.intoArray(scores, i);
+		}
+	}
+
+	/**
+	 * Method counts
+	 * Purpose:			Used to add up the partial counts of a vector of positions.
+	 * Parameters:		@param i the first position of the vector
+	 * Return:			@return the score of the threes and twos together in the low bits of each lane,
+	 * 					and a one above them if the position has four together
+	 */
+	private IntVector counts(int i) {
+		LongVector three = total(LongVector.fromArray(LONGS, threes, i));
+		LongVector four = LongVector.fromArray(LONGS, fours, i);
+		LongVector won = four.or(four.neg()).lanewise(VectorOperators.LSHR, 63);	//1 if any bit is set
+		LongVector counts = three.lanewise(VectorOperators.LSHL, 3).add(three.lanewise(VectorOperators.LSHL, 1))
+				.add(total(LongVector.fromArray(LONGS, twos, i))).or(won.lanewise(VectorOperators.LSHL, WON));
+		return (IntVector) counts.convertShape(VectorOperators.L2I, INTS, 0);
+	}
+
+	/**
+	 * Method bitCounts
+	 * Purpose:			Used to count the bits of every lane, by lane if the operator is there and by
+	 * 					byte otherwise. The branch is on a constant, so the compiler keeps only one side.
+	 * Parameters:		@param x the bitboards
+	 * Return:			@return the counted bits, to be added up with total
+	 */
+	private static LongVector bitCounts(LongVector x) {
+		return BIT_COUNT != null ? x.lanewise(BIT_COUNT) : byteCounts(x);
+	}
+
+	/**
+	 * Method total
+	 * Purpose:			Used to turn counted bits into the amount of bits of each lane.
+	 * Parameters:		@param x the counted bits, as given by bitCounts
+	 * Return:			@return the amount of bits of each lane
+	 */
+	private static LongVector total(LongVector x) {
+		return BIT_COUNT != null ? x : sumBytes(x);
+	}
+
+	/**
+	 * Method byteCounts
+	 * Purpose:			Used to count the bits of each byte of every lane.
+	 * Parameters:		@param x the bitboards
+	 * Return:			@return the amount of bits set in each byte, in that byte
+	 */
+	private static LongVector byteCounts(LongVector x) {
+		x = x.sub(x.lanewise(VectorOperators.LSHR, 1).and(BITS));
+		x = x.and(PAIRS).add(x.lanewise(VectorOperators.LSHR, 2).and(PAIRS));
+		return x.add(x.lanewise(VectorOperators.LSHR, 4)).and(HALVES);
+	}
+
+	/**
+	 * Method sumBytes
+	 * Purpose:			Used to add the bytes of every lane together.
+	 * Precondition:	The bytes of a lane must add up to less than 256.
+	 * Parameters:		@param x the byte counts
+	 * Return:			@return the sum of the bytes of each lane
+	 */
+	private static LongVector sumBytes(LongVector x) {
+		x = x.add(x.lanewise(VectorOperators.LSHR, 8));
+		x = x.add(x.lanewise(VectorOperators.LSHR, 16));
+		return x.add(x.lanewise(VectorOperators.LSHR, 32)).and(0xFF);
+	}
+
+	/**
+	 * Method bitCount
+	 * Purpose:			Used to look up the operator that counts the bits of each lane, which was added to
+	 * 					the Vector API after Java 17.
+	 * Return:			@return the operator, or null if this version of Java does not have it
+	 */
+	private static VectorOperators.Unary bitCount() {
+		try {
+			return (VectorOperators.Unary) VectorOperators.class.getField("BIT_COUNT").get(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}